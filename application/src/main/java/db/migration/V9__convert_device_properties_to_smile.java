@@ -0,0 +1,65 @@
+package db.migration;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Converts device properties from JSON text to Smile documents.
+ * <p>
+ * SQLite never converts BLOB values to match a column's declared type, so the
+ * existing column can hold the new documents as is and the table doesn't need
+ * to be rebuilt. Properties that aren't valid JSON are replaced by an empty
+ * object. The JSON index is left untouched, since the documents' content
+ * doesn't change.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Slf4j
+public class V9__convert_device_properties_to_smile extends BaseJavaMigration {
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        ObjectMapper json = new ObjectMapper();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+
+        try (Statement select = context.getConnection().createStatement();
+                PreparedStatement update = context.getConnection()
+                        .prepareStatement("UPDATE devices SET properties = ? WHERE id = ?");
+                ResultSet rows = select.executeQuery(
+                        "SELECT id, properties FROM devices WHERE typeof(properties) = 'text'")) {
+            int converted = 0;
+            while (rows.next()) {
+                long id = rows.getLong(1);
+                JsonNode properties;
+                try {
+                    properties = json.readTree(rows.getString(2));
+                } catch (JsonProcessingException e) {
+                    log.warn("Device {} has invalid properties, replacing them with an empty object", id);
+                    properties = json.createObjectNode();
+                }
+                if (properties == null || !properties.isObject()) {
+                    properties = json.createObjectNode();
+                }
+
+                update.setBytes(1, smile.writeValueAsBytes(properties));
+                update.setLong(2, id);
+                update.addBatch();
+                converted++;
+            }
+            update.executeBatch();
+            log.info("Converted the properties of {} devices to Smile", converted);
+        }
+    }
+}
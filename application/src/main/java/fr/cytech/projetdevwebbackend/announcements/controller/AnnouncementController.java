@@ -15,26 +15,29 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementDto;
+import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementFeedDto;
+import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementFeedPageDto;
 import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementIdDto;
 import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementReportDto;
 import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementSearchDto;
+import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementTagDto;
 import fr.cytech.projetdevwebbackend.announcements.model.Announcement;
 import fr.cytech.projetdevwebbackend.announcements.model.AnnouncementReport;
 import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementReportProjection;
 import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSearchProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSummaryProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.TagCountProjection;
 import fr.cytech.projetdevwebbackend.announcements.model.repository.AnnouncementReportRepository;
 import fr.cytech.projetdevwebbackend.announcements.model.repository.AnnouncementRepository;
 import fr.cytech.projetdevwebbackend.announcements.service.AnnouncementReportService;
 import fr.cytech.projetdevwebbackend.announcements.service.AnnouncementService;
-import fr.cytech.projetdevwebbackend.users.jwt.JwtTokenProvider;
+import fr.cytech.projetdevwebbackend.users.jwt.CurrentUser;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.User;
-import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 
@@ -46,21 +49,16 @@ public class AnnouncementController {
     private final AnnouncementService announcementService;
     private final AnnouncementReportService reportService;
     private final AnnouncementReportRepository announcementReportRepository;
-    private final UserRepository userRepository;
-    private final JwtTokenProvider jwtTokenProvider;
     private final AnnouncementRepository announcementRepository;
 
     @Autowired
     public AnnouncementController(
             AnnouncementService announcementService,
             AnnouncementReportService reportService,
-            UserRepository userRepository,
-            JwtTokenProvider jwtTokenProvider, AnnouncementReportRepository announcementReportRepository,
+            AnnouncementReportRepository announcementReportRepository,
             AnnouncementRepository announcementRepository) {
         this.announcementService = announcementService;
         this.reportService = reportService;
-        this.userRepository = userRepository;
-        this.jwtTokenProvider = jwtTokenProvider;
         this.announcementReportRepository = announcementReportRepository;
         this.announcementRepository = announcementRepository;
     }
@@ -86,49 +84,28 @@ public class AnnouncementController {
      * <p>
      * Requires USER role.
      *
-     * @param token The authentication token
-     * @param dto   DTO containing the announcement details
+     * @param user The authenticated user
+     * @param dto  DTO containing the announcement details
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/create")
     public ResponseEntity<?> createAnnouncement(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser User user,
             @RequestBody @Valid AnnouncementDto dto) {
 
         log.debug("Creating announcement with title: {}", dto.getTitle());
 
-        // Extract username from token
-        String username = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (username == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "User not found");
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
-
         try {
             Announcement announcement = announcementService.createAnnouncement(
                     dto.getTitle(),
                     dto.getBody(),
                     dto.getTags(),
-                    user.get(),
+                    user,
                     dto.getRoleRestrictions(),
                     true);
 
-            log.info("Announcement created successfully by user {}", username);
+            log.info("Announcement created successfully by user {}", user.getUsername());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Announcement created successfully");
@@ -150,30 +127,17 @@ public class AnnouncementController {
      * Available to all users, including unauthenticated ones.
      * Visibility restrictions are enforced by the service.
      *
-     * @param dto   DTO containing the announcement ID
-     * @param token Optional authentication token
+     * @param dto         DTO containing the announcement ID
+     * @param currentUser The authenticated user, if any
      * @return ResponseEntity with the announcement or error status
      */
     @PostMapping("/get")
     public ResponseEntity<?> getAnnouncement(
             @RequestBody @Valid AnnouncementIdDto dto,
-            @RequestHeader(value = "Authorization", required = false) String token) {
+            @CurrentUser(required = false) User currentUser) {
 
         log.debug("Fetching announcement with ID: {}", dto.getId());
 
-        User currentUser = null;
-
-        // If token is provided, extract user
-        if (token != null && !token.isEmpty()) {
-            String username = jwtTokenProvider.extractUsername(token).fold(
-                    err -> null,
-                    user -> user);
-
-            if (username != null) {
-                currentUser = userRepository.findByUsername(username).orElse(null);
-            }
-        }
-
         try {
             Announcement announcement = announcementService.getAnnouncementById(dto.getId(), currentUser);
 
@@ -194,39 +158,118 @@ public class AnnouncementController {
      * <p>
      * Available to all users, including unauthenticated ones.
      *
-     * @param dto   DTO containing the search term
-     * @param token Optional authentication token
+     * @param dto         DTO containing the search term
+     * @param currentUser The authenticated user, if any
      * @return ResponseEntity with search results or error status
      */
     @PostMapping("/search")
     public ResponseEntity<?> searchAnnouncements(
             @RequestBody @Valid AnnouncementSearchDto dto,
-            @RequestHeader(value = "Authorization", required = false) String token) {
+            @CurrentUser(required = false) User currentUser) {
 
         log.debug("Searching announcements with term: {}", dto.getSearchTerm());
 
-        User currentUser = null;
+        try {
+            List<AnnouncementSearchProjection> results = announcementService.searchAnnouncements(dto.getSearchTerm(),
+                    currentUser);
 
-        // If token is provided, extract user
-        if (token != null && !token.isEmpty()) {
-            String username = jwtTokenProvider.extractUsername(token).fold(
-                    err -> null,
-                    user -> user);
+            log.info("Successfully searched announcements, found {} results", results.size());
 
-            if (username != null) {
-                currentUser = userRepository.findByUsername(username).orElse(null);
-            }
+            return ResponseEntity.ok(results);
+        } catch (Exception e) {
+            log.warn("Failed to search announcements: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
         }
+    }
+
+    /**
+     * Gets a page of the announcement feed, most recently updated first.
+     * <p>
+     * Available to all users, including unauthenticated ones. The first page
+     * is requested without a cursor, each page then gives the cursor of the
+     * next one, which is null on the last page.
+     *
+     * @param dto         DTO containing the cursor and page size
+     * @param currentUser The authenticated user, if any
+     * @return ResponseEntity with the page or error status
+     */
+    @PostMapping("/feed")
+    public ResponseEntity<?> getFeed(
+            @RequestBody @Valid AnnouncementFeedDto dto,
+            @CurrentUser(required = false) User currentUser) {
+
+        log.debug("Fetching announcement feed page with cursor: {}", dto.getCursor());
 
         try {
-            List<AnnouncementSearchProjection> results = announcementService.searchAnnouncements(dto.getSearchTerm(),
+            AnnouncementFeedPageDto page = announcementService.getFeed(dto.getCursor(), dto.getLimit(), currentUser);
+
+            log.info("Successfully retrieved feed page with {} announcements", page.getAnnouncements().size());
+
+            return ResponseEntity.ok(page);
+        } catch (Exception e) {
+            log.warn("Failed to retrieve announcement feed: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Lists the announcements carrying a tag.
+     * <p>
+     * Available to all users, including unauthenticated ones.
+     *
+     * @param dto         DTO containing the tag
+     * @param currentUser The authenticated user, if any
+     * @return ResponseEntity with the announcements or error status
+     */
+    @PostMapping("/by-tag")
+    public ResponseEntity<?> getAnnouncementsByTag(
+            @RequestBody @Valid AnnouncementTagDto dto,
+            @CurrentUser(required = false) User currentUser) {
+
+        log.debug("Listing announcements with tag: {}", dto.getTag());
+
+        try {
+            List<AnnouncementSummaryProjection> results = announcementService.getAnnouncementsByTag(dto.getTag(),
                     currentUser);
 
-            log.info("Successfully searched announcements, found {} results", results.size());
+            log.info("Successfully listed announcements by tag, found {} results", results.size());
 
             return ResponseEntity.ok(results);
         } catch (Exception e) {
-            log.warn("Failed to search announcements: {}", e.getMessage());
+            log.warn("Failed to list announcements by tag: {}", e.getMessage());
+
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", e.getMessage());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+    }
+
+    /**
+     * Gets the tags of the announcements, with the number of announcements
+     * carrying each of them.
+     * <p>
+     * Available to all users, including unauthenticated ones. Only the
+     * announcements visible to the user are counted.
+     *
+     * @param currentUser The authenticated user, if any
+     * @return ResponseEntity with the tags, most used first
+     */
+    @PostMapping("/tags")
+    public ResponseEntity<?> getTagFacets(@CurrentUser(required = false) User currentUser) {
+        try {
+            List<TagCountProjection> facets = announcementService.getTagFacets(currentUser);
+
+            log.info("Successfully retrieved {} tag facets", facets.size());
+
+            return ResponseEntity.ok(facets);
+        } catch (Exception e) {
+            log.warn("Failed to retrieve tag facets: {}", e.getMessage());
 
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", e.getMessage());
@@ -240,50 +283,29 @@ public class AnnouncementController {
      * Requires USER role.
      * Only the poster or an admin can update an announcement.
      *
-     * @param token The authentication token
-     * @param dto   DTO containing the updated announcement details
+     * @param user The authenticated user
+     * @param dto  DTO containing the updated announcement details
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/update")
     public ResponseEntity<?> updateAnnouncement(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser User user,
             @RequestBody @Valid AnnouncementDto dto) {
 
         log.debug("Updating announcement with ID: {}", dto.getId());
 
-        // Extract username from token
-        String username = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (username == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "User not found");
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
-
         try {
             announcementService.updateAnnouncement(
                     dto.getId(),
                     dto.getTitle(),
                     dto.getBody(),
                     dto.getTags(),
-                    user.get(),
+                    user,
                     dto.getRoleRestrictions(),
                     true);
 
-            log.info("Announcement updated successfully by user {}", username);
+            log.info("Announcement updated successfully by user {}", user.getUsername());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Announcement updated successfully");
@@ -304,43 +326,22 @@ public class AnnouncementController {
      * Requires USER role.
      * Only the poster or an admin can delete an announcement.
      *
-     * @param token The authentication token
-     * @param dto   DTO containing the announcement ID
+     * @param user The authenticated user
+     * @param dto  DTO containing the announcement ID
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/delete")
     public ResponseEntity<?> deleteAnnouncement(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser User user,
             @RequestBody @Valid AnnouncementIdDto dto) {
 
         log.debug("Deleting announcement with ID: {}", dto.getId());
 
-        // Extract username from token
-        String username = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (username == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "User not found");
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
-
         try {
-            announcementService.deleteAnnouncement(dto.getId(), user.get());
+            announcementService.deleteAnnouncement(dto.getId(), user);
 
-            log.info("Announcement deleted successfully by user {}", username);
+            log.info("Announcement deleted successfully by user {}", user.getUsername());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Announcement deleted successfully");
@@ -360,44 +361,23 @@ public class AnnouncementController {
      * <p>
      * Requires USER role.
      *
-     * @param token The authentication token
-     * @param dto   DTO containing the report details
+     * @param user The authenticated user
+     * @param dto  DTO containing the report details
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/report")
     public ResponseEntity<?> reportAnnouncement(
-            @RequestHeader("Authorization") String token,
+            @CurrentUser User user,
             @RequestBody @Valid AnnouncementReportDto dto) {
 
         log.debug("Reporting announcement with ID: {}", dto.getAnnouncementId());
 
-        // Extract username from token
-        String username = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (username == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
-        Optional<User> user = userRepository.findByUsername(username);
-        if (user.isEmpty()) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "User not found");
-            return ResponseEntity.badRequest().body(errorResponse);
-        }
-
         try {
             AnnouncementReport report = reportService.reportAnnouncement(
-                    dto.getAnnouncementId(), dto.getReason(), user.get());
+                    dto.getAnnouncementId(), dto.getReason(), user);
 
-            log.info("Announcement reported successfully by user {}", username);
+            log.info("Announcement reported successfully by user {}", user.getUsername());
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Announcement reported successfully");
@@ -0,0 +1,22 @@
+package fr.cytech.projetdevwebbackend.announcements.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for requesting a page of the announcement feed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementFeedDto {
+    /** Cursor returned with the previous page, or null for the first page */
+    private String cursor;
+
+    @Min(1)
+    @Max(100)
+    private Integer limit;
+}
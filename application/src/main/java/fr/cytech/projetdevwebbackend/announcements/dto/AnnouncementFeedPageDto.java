@@ -0,0 +1,21 @@
+package fr.cytech.projetdevwebbackend.announcements.dto;
+
+import java.util.List;
+
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSummaryProjection;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a page of the announcement feed
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementFeedPageDto {
+    private List<? extends AnnouncementSummaryProjection> announcements;
+
+    /** Cursor of the next page, or null if this is the last page */
+    private String nextCursor;
+}
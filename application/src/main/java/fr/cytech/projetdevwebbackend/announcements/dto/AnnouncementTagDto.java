@@ -0,0 +1,17 @@
+package fr.cytech.projetdevwebbackend.announcements.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for browsing announcements by tag
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnnouncementTagDto {
+    @NotBlank
+    private String tag;
+}
@@ -2,15 +2,16 @@ package fr.cytech.projetdevwebbackend.announcements.model;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
-import fr.cytech.projetdevwebbackend.jpa.annotation.JsonColumn;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.User;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
@@ -20,6 +21,9 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.OrderBy;
 import jakarta.persistence.Table;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -33,9 +37,16 @@ import lombok.NoArgsConstructor;
 @Builder
 @Entity
 @Table(name = "announcements")
+@NamedEntityGraph(name = Announcement.WITH_DETAILS, attributeNodes = {
+        @NamedAttributeNode("poster"),
+        @NamedAttributeNode("tags"),
+        @NamedAttributeNode("roleRestrictions") })
 @EqualsAndHashCode(of = { "id" })
 public class Announcement {
 
+    /** Entity graph loading everything shown with the announcement */
+    public static final String WITH_DETAILS = "Announcement.withDetails";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -50,9 +61,13 @@ public class Announcement {
     @JoinColumn(name = "poster_id", nullable = false)
     private User poster;
 
+    /** Stored one per row, so that filtering and faceting by tag use an index */
     @Builder.Default
-    @JsonColumn
-    private String tags = "";
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(name = "announcement_tags", joinColumns = @JoinColumn(name = "announcement_id"))
+    @Column(name = "tag", nullable = false)
+    @OrderBy
+    private Set<String> tags = new LinkedHashSet<>();
 
     @Column(nullable = false)
     private LocalDateTime createdAt;
@@ -61,7 +76,7 @@ public class Announcement {
     private LocalDateTime updatedAt;
 
     @Builder.Default
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "announcement_role_restrictions", joinColumns = @JoinColumn(name = "announcement_id"), inverseJoinColumns = @JoinColumn(name = "role_id"))
     private Set<Role> roleRestrictions = new HashSet<>();
 
@@ -69,6 +84,15 @@ public class Announcement {
     @Column(nullable = false)
     private boolean isPublic = true;
 
+    /**
+     * Checks whether a user can see this announcement.
+     * <p>
+     * Queries should use {@code AnnouncementRepository.VISIBLE_TO_USER}
+     * instead, which applies the same rule in SQL. Both must be kept in sync.
+     *
+     * @param user the user, or null for an anonymous user
+     * @return true if the announcement is visible to the user
+     */
     public boolean isVisibleToUser(User user) {
         // Poster can always see their own announcement
         if (user != null && user.getId().equals(poster.getId())) {
@@ -93,25 +117,27 @@ public class Announcement {
     /**
      * Gets the tags as a List of Strings.
      * 
-     * @return List of tag strings
+     * @return List of tag strings, in alphabetical order
      */
     public List<String> getTagsList() {
-        if (tags == null || tags.isEmpty()) {
-            return new ArrayList<>();
-        }
-        return Arrays.asList(tags.split(","));
+        return new ArrayList<>(tags);
     }
 
     /**
      * Sets tags from a List of Strings.
+     * <p>
+     * Tags are trimmed, and blank or duplicate tags are ignored.
      * 
      * @param tagsList List of tag strings
      */
     public void setTagsList(List<String> tagsList) {
-        if (tagsList == null || tagsList.isEmpty()) {
-            this.tags = "";
-        } else {
-            this.tags = String.join(",", tagsList);
+        // Modified in place, so that Hibernate only writes the tags that changed
+        tags.clear();
+        if (tagsList != null) {
+            tagsList.stream()
+                    .filter(tag -> tag != null && !tag.isBlank())
+                    .map(String::trim)
+                    .forEach(tags::add);
         }
     }
 }
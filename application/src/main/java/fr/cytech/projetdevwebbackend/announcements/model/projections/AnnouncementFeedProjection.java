@@ -0,0 +1,16 @@
+package fr.cytech.projetdevwebbackend.announcements.model.projections;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * An announcement of the feed, along with its position in the feed
+ */
+public interface AnnouncementFeedProjection extends AnnouncementSummaryProjection {
+
+    /**
+     * @return the update date as stored in the database, used to build the
+     *         cursor of the next page
+     */
+    @JsonIgnore
+    Long getUpdatedAtKey();
+}
@@ -1,7 +1,25 @@
 package fr.cytech.projetdevwebbackend.announcements.model.projections;
 
+/**
+ * A ranked announcement search result.
+ * <p>
+ * Matched terms are wrapped in {@code <mark>} and {@code </mark>} in the
+ * highlighted title and in the snippet. The rest of the text is returned as
+ * is, and must be escaped by clients rendering it as HTML.
+ */
 public interface AnnouncementSearchProjection {
     Long getId();
 
     String getTitle();
+
+    /**
+     * @return the title, with matched terms highlighted
+     */
+    String getHighlightedTitle();
+
+    /**
+     * @return the part of the body that best matches the search, with matched
+     *         terms highlighted
+     */
+    String getSnippet();
 }
@@ -0,0 +1,16 @@
+package fr.cytech.projetdevwebbackend.announcements.model.projections;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection interface for announcement listings, without the body
+ */
+public interface AnnouncementSummaryProjection {
+    Long getId();
+
+    String getTitle();
+
+    String getPosterUsername();
+
+    LocalDateTime getUpdatedAt();
+}
@@ -0,0 +1,10 @@
+package fr.cytech.projetdevwebbackend.announcements.model.projections;
+
+/**
+ * A tag, with the number of announcements carrying it
+ */
+public interface TagCountProjection {
+    String getTag();
+
+    Long getCount();
+}
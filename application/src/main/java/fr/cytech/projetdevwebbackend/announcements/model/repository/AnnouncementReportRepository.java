@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.announcements.model.Announcement;
 import fr.cytech.projetdevwebbackend.announcements.model.AnnouncementReport;
@@ -13,6 +14,7 @@ import fr.cytech.projetdevwebbackend.announcements.model.projections.Announcemen
 import fr.cytech.projetdevwebbackend.users.model.User;
 
 @Repository
+@Transactional(readOnly = true)
 public interface AnnouncementReportRepository extends JpaRepository<AnnouncementReport, Long> {
     List<AnnouncementReport> findByAnnouncement(Announcement announcement);
 
@@ -1,26 +1,165 @@
 package fr.cytech.projetdevwebbackend.announcements.model.repository;
 
 import java.util.List;
+import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.announcements.model.Announcement;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementFeedProjection;
 import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSearchProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSummaryProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.TagCountProjection;
 import fr.cytech.projetdevwebbackend.users.model.User;
 
 @Repository
+@Transactional(readOnly = true)
 public interface AnnouncementRepository extends JpaRepository<Announcement, Long> {
 
+    /**
+     * SQL predicate selecting the announcements of alias {@code a} that the
+     * user of id {@code :userId} can see, mirroring
+     * {@link Announcement#isVisibleToUser(User)}. A null user id stands for an
+     * anonymous user.
+     * <p>
+     * An announcement is visible to its poster, to everyone if it is public
+     * and unrestricted, to administrators, and to the users having one of the
+     * roles it is restricted to.
+     */
+    String VISIBLE_TO_USER = "(a.poster_id = :userId "
+            + "OR (a.is_public = 1 AND NOT EXISTS ("
+            + "SELECT 1 FROM announcement_role_restrictions rr WHERE rr.announcement_id = a.id)) "
+            + "OR EXISTS (SELECT 1 FROM users_roles ur JOIN roles r ON r.id = ur.role_id "
+            + "WHERE ur.user_id = :userId AND r.name = 'ADMIN') "
+            + "OR EXISTS (SELECT 1 FROM announcement_role_restrictions rr "
+            + "JOIN users_roles ur ON ur.role_id = rr.role_id "
+            + "WHERE rr.announcement_id = a.id AND ur.user_id = :userId))";
+
+    /** Columns of the announcement feed, for alias {@code a} and poster {@code u} */
+    String FEED_COLUMNS = "a.id AS id, a.title AS title, u.username AS posterUsername, "
+            + "a.updated_at AS updatedAt, CAST(a.updated_at AS INTEGER) AS updatedAtKey ";
+
     List<Announcement> findByPoster(User poster);
 
-    @Query("SELECT a.id as id, a.title as title FROM Announcement a WHERE " +
-            "LOWER(a.title) LIKE LOWER(CONCAT('%', :searchTerm, '%')) ORDER BY a.updatedAt DESC")
-    List<AnnouncementSearchProjection> findByTitleContaining(@Param("searchTerm") String searchTerm);
+    /**
+     * Finds an announcement along with its poster, tags and role
+     * restrictions.
+     *
+     * @param id the id of the announcement
+     * @return the announcement, or empty if it doesn't exist
+     */
+    @EntityGraph(Announcement.WITH_DETAILS)
+    Optional<Announcement> findWithDetailsById(Long id);
+
+    /**
+     * Checks whether a user can see an announcement, without loading it.
+     *
+     * @param id     the id of the announcement
+     * @param userId the id of the user, or null for an anonymous user
+     * @return the id of the announcement, or empty if it doesn't exist or is
+     *         hidden from the user
+     */
+    @Query(value = "SELECT a.id FROM announcements a WHERE a.id = :id AND "
+            + VISIBLE_TO_USER, nativeQuery = true)
+    Optional<Long> findVisibleId(@Param("id") Long id, @Param("userId") Long userId);
+
+    /**
+     * Searches the announcements a user can see through the full-text index.
+     * <p>
+     * Results are ranked with BM25, matches in the title weighing the most and
+     * matches in the body the least.
+     *
+     * @param query  an FTS5 query
+     * @param userId the id of the user, or null for an anonymous user
+     * @param limit  the maximum number of results
+     * @return the best matching announcements, best first
+     */
+    @Query(value = "SELECT a.id AS id, a.title AS title, "
+            + "highlight(announcements_fts, 0, '<mark>', '</mark>') AS highlightedTitle, "
+            + "snippet(announcements_fts, 1, '<mark>', '</mark>', '…', 16) AS snippet "
+            + "FROM announcements_fts "
+            + "JOIN announcements a ON a.id = announcements_fts.rowid "
+            + "WHERE announcements_fts MATCH :query AND " + VISIBLE_TO_USER + " "
+            + "ORDER BY bm25(announcements_fts, 10.0, 1.0, 5.0), a.id "
+            + "LIMIT :limit", nativeQuery = true)
+    List<AnnouncementSearchProjection> search(@Param("query") String query, @Param("userId") Long userId,
+            @Param("limit") int limit);
+
+    /**
+     * Lists the announcements carrying a tag that a user can see.
+     *
+     * @param tag    the exact tag
+     * @param userId the id of the user, or null for an anonymous user
+     * @param limit  the maximum number of results
+     * @return the matching announcements, most recently updated first
+     */
+    @Query(value = "SELECT a.id AS id, a.title AS title, u.username AS posterUsername, "
+            + "a.updated_at AS updatedAt "
+            + "FROM announcement_tags t "
+            + "JOIN announcements a ON a.id = t.announcement_id "
+            + "JOIN users u ON u.id = a.poster_id "
+            + "WHERE t.tag = :tag AND " + VISIBLE_TO_USER + " "
+            + "ORDER BY a.updated_at DESC, a.id DESC "
+            + "LIMIT :limit", nativeQuery = true)
+    List<AnnouncementSummaryProjection> findVisibleByTag(@Param("tag") String tag, @Param("userId") Long userId,
+            @Param("limit") int limit);
+
+    /**
+     * Counts the announcements a user can see, per tag.
+     *
+     * @param userId the id of the user, or null for an anonymous user
+     * @param limit  the maximum number of tags
+     * @return the tags, most used first
+     */
+    @Query(value = "SELECT t.tag AS tag, COUNT(*) AS count "
+            + "FROM announcement_tags t "
+            + "JOIN announcements a ON a.id = t.announcement_id "
+            + "WHERE " + VISIBLE_TO_USER + " "
+            + "GROUP BY t.tag "
+            + "ORDER BY count DESC, t.tag "
+            + "LIMIT :limit", nativeQuery = true)
+    List<TagCountProjection> countVisibleByTag(@Param("userId") Long userId, @Param("limit") int limit);
+
+    /**
+     * Gets the first page of the announcement feed of a user.
+     *
+     * @param userId the id of the user, or null for an anonymous user
+     * @param limit  the maximum number of results
+     * @return the visible announcements, most recently updated first
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS
+            + "FROM announcements a "
+            + "JOIN users u ON u.id = a.poster_id "
+            + "WHERE " + VISIBLE_TO_USER + " "
+            + "ORDER BY a.updated_at DESC, a.id DESC "
+            + "LIMIT :limit", nativeQuery = true)
+    List<AnnouncementFeedProjection> findFeed(@Param("userId") Long userId, @Param("limit") int limit);
 
-    @Query("SELECT a.id as id, a.title as title FROM Announcement a WHERE " +
-            "a.tags LIKE %:searchTerm% ORDER BY a.updatedAt DESC")
-    List<AnnouncementSearchProjection> findByTagContaining(@Param("searchTerm") String searchTerm);
+    /**
+     * Gets the page of the announcement feed of a user following a given
+     * announcement.
+     * <p>
+     * Pages are found by seeking through the {@code (updated_at, id)} index
+     * rather than with an offset, so every page costs the same.
+     *
+     * @param updatedAtKey the stored update date of the last announcement of
+     *                     the previous page
+     * @param id           the id of the last announcement of the previous page
+     * @param userId       the id of the user, or null for an anonymous user
+     * @param limit        the maximum number of results
+     * @return the visible announcements, most recently updated first
+     */
+    @Query(value = "SELECT " + FEED_COLUMNS
+            + "FROM announcements a "
+            + "JOIN users u ON u.id = a.poster_id "
+            + "WHERE (a.updated_at, a.id) < (:updatedAtKey, :id) AND " + VISIBLE_TO_USER + " "
+            + "ORDER BY a.updated_at DESC, a.id DESC "
+            + "LIMIT :limit", nativeQuery = true)
+    List<AnnouncementFeedProjection> findFeedAfter(@Param("updatedAtKey") Long updatedAtKey, @Param("id") Long id,
+            @Param("userId") Long userId, @Param("limit") int limit);
 }
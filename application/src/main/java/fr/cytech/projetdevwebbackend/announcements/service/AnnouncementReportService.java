@@ -13,6 +13,7 @@ import fr.cytech.projetdevwebbackend.announcements.model.AnnouncementReport;
 import fr.cytech.projetdevwebbackend.announcements.model.repository.AnnouncementReportRepository;
 import fr.cytech.projetdevwebbackend.announcements.model.repository.AnnouncementRepository;
 import fr.cytech.projetdevwebbackend.users.model.User;
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
 
 @Service
 public class AnnouncementReportService {
@@ -23,24 +24,26 @@ public class AnnouncementReportService {
     @Autowired
     private AnnouncementReportRepository reportRepository;
 
-    @Transactional
-    public AnnouncementReport reportAnnouncement(Long announcementId, String reason, User reporter) {
-        Announcement announcement = announcementRepository.findById(announcementId)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Announcement not found"));
-
-        // Check if the announcement is visible to the user
-        if (!announcement.isVisibleToUser(reporter)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
-                    "You don't have permission to view this announcement");
-        }
+    @Autowired
+    private AnnouncementService announcementService;
 
-        AnnouncementReport report = AnnouncementReport.builder()
-                .announcement(announcement)
-                .reporter(reporter)
-                .reason(reason)
-                .build();
+    @Autowired
+    private WriteQueue writeQueue;
 
-        return reportRepository.save(report);
+    public AnnouncementReport reportAnnouncement(Long announcementId, String reason, User reporter) {
+        // Only announcements visible to the user can be reported. Checked before
+        // queuing, as a failing write would roll back the other writes of its batch
+        announcementService.checkAnnouncementVisible(announcementId, reporter);
+
+        return writeQueue.execute(() -> {
+            AnnouncementReport report = AnnouncementReport.builder()
+                    .announcement(announcementRepository.getReferenceById(announcementId))
+                    .reporter(reporter)
+                    .reason(reason)
+                    .build();
+
+            return reportRepository.save(report);
+        });
     }
 
     @Transactional(readOnly = true)
@@ -1,10 +1,13 @@
 package fr.cytech.projetdevwebbackend.announcements.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.List;
 import java.util.Set;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -12,28 +15,44 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import fr.cytech.projetdevwebbackend.announcements.dto.AnnouncementFeedPageDto;
 import fr.cytech.projetdevwebbackend.announcements.model.Announcement;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementFeedProjection;
 import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSearchProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.AnnouncementSummaryProjection;
+import fr.cytech.projetdevwebbackend.announcements.model.projections.TagCountProjection;
 import fr.cytech.projetdevwebbackend.announcements.model.repository.AnnouncementRepository;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.User;
-import fr.cytech.projetdevwebbackend.users.model.repository.RoleRepository;
+import fr.cytech.projetdevwebbackend.users.service.RoleRegistry;
 
 @Service
 public class AnnouncementService {
 
+    /** Maximum number of announcements returned by a search */
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    /** Number of announcements per page of the feed, unless requested otherwise */
+    private static final int DEFAULT_FEED_PAGE_SIZE = 20;
+
+    /** Maximum number of tags returned by the tag facets */
+    private static final int MAX_TAG_FACETS = 100;
+
+    /** Separates the words of a search, as the full-text index's tokenizer does */
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
     @Autowired
     private AnnouncementRepository announcementRepository;
 
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
 
     @Transactional
     public Announcement createAnnouncement(String title, String body, List<String> tags, User poster,
             Set<String> roleRestrictionNames, boolean isPublic) {
         Set<Role> roleRestrictions = roleRestrictionNames != null
                 ? roleRestrictionNames.stream()
-                        .map(roleName -> roleRepository.findByName(roleName)
+                        .map(roleName -> roleRegistry.findByName(roleName)
                                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
                                         "Role not found: " + roleName)))
                         .collect(Collectors.toSet())
@@ -45,27 +64,36 @@ public class AnnouncementService {
                 .title(title)
                 .body(body)
                 .poster(poster)
-                .tags(tags != null ? String.join(",", tags) : "")
                 .createdAt(now)
                 .updatedAt(now)
                 .roleRestrictions(roleRestrictions)
                 .isPublic(isPublic)
                 .build();
+        announcement.setTagsList(tags);
 
         return announcementRepository.save(announcement);
     }
 
     @Transactional(readOnly = true)
     public Announcement getAnnouncementById(Long id, User currentUser) {
-        Announcement announcement = announcementRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Announcement not found"));
+        // Visibility is checked in the database, hidden announcements are never loaded
+        return announcementRepository.findVisibleId(id, currentUser != null ? currentUser.getId() : null)
+                .flatMap(announcementRepository::findWithDetailsById)
+                .orElseThrow(() -> notVisible(id));
+    }
 
-        if (!announcement.isVisibleToUser(currentUser)) {
-            throw new ResponseStatusException(HttpStatus.FORBIDDEN,
-                    "You don't have permission to view this announcement");
+    @Transactional(readOnly = true)
+    public void checkAnnouncementVisible(Long id, User currentUser) {
+        if (announcementRepository.findVisibleId(id, currentUser != null ? currentUser.getId() : null).isEmpty()) {
+            throw notVisible(id);
         }
+    }
 
-        return announcement;
+    private ResponseStatusException notVisible(Long id) {
+        return announcementRepository.existsById(id)
+                ? new ResponseStatusException(HttpStatus.FORBIDDEN,
+                        "You don't have permission to view this announcement")
+                : new ResponseStatusException(HttpStatus.NOT_FOUND, "Announcement not found");
     }
 
     @Transactional(readOnly = true)
@@ -74,30 +102,112 @@ public class AnnouncementService {
             return List.of();
         }
 
-        String term = searchTerm.trim();
+        String query = toFullTextQuery(searchTerm);
+        if (query.isEmpty()) {
+            return List.of();
+        }
+
+        return announcementRepository.search(query, currentUser != null ? currentUser.getId() : null,
+                MAX_SEARCH_RESULTS);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AnnouncementSummaryProjection> getAnnouncementsByTag(String tag, User currentUser) {
+        if (tag == null || tag.isBlank()) {
+            return List.of();
+        }
+
+        return announcementRepository.findVisibleByTag(tag.trim(), currentUser != null ? currentUser.getId() : null,
+                MAX_SEARCH_RESULTS);
+    }
+
+    @Transactional(readOnly = true)
+    public List<TagCountProjection> getTagFacets(User currentUser) {
+        return announcementRepository.countVisibleByTag(currentUser != null ? currentUser.getId() : null,
+                MAX_TAG_FACETS);
+    }
+
+    /**
+     * Gets a page of the announcements a user can see, most recently updated
+     * first.
+     *
+     * @param cursor      the cursor returned with the previous page, or null
+     *                    for the first page
+     * @param limit       the maximum number of announcements, or null for the
+     *                    default page size
+     * @param currentUser the current user, or null for an anonymous user
+     * @return the page, along with the cursor of the next one
+     */
+    @Transactional(readOnly = true)
+    public AnnouncementFeedPageDto getFeed(String cursor, Integer limit, User currentUser) {
+        Long userId = currentUser != null ? currentUser.getId() : null;
+        int pageSize = limit != null ? limit : DEFAULT_FEED_PAGE_SIZE;
 
-        // Search in title
-        List<AnnouncementSearchProjection> titleResults = announcementRepository.findByTitleContaining(term);
+        // One more announcement is fetched to know whether there is a next page
+        List<AnnouncementFeedProjection> announcements;
+        if (cursor == null || cursor.isEmpty()) {
+            announcements = announcementRepository.findFeed(userId, pageSize + 1);
+        } else {
+            long[] position = decodeCursor(cursor);
+            announcements = announcementRepository.findFeedAfter(position[0], position[1], userId, pageSize + 1);
+        }
 
-        // Search in tags
-        List<AnnouncementSearchProjection> tagResults = announcementRepository.findByTagContaining(term);
+        if (announcements.size() <= pageSize) {
+            return new AnnouncementFeedPageDto(announcements, null);
+        }
+        announcements = announcements.subList(0, pageSize);
+        AnnouncementFeedProjection last = announcements.get(pageSize - 1);
+        return new AnnouncementFeedPageDto(announcements, encodeCursor(last.getUpdatedAtKey(), last.getId()));
+    }
 
-        // Combine results, removing duplicates (titles have priority)
-        Set<Long> foundIds = titleResults.stream()
-                .map(AnnouncementSearchProjection::getId)
-                .collect(Collectors.toSet());
+    /**
+     * Encodes the position of an announcement in the feed into an opaque
+     * cursor.
+     */
+    private static String encodeCursor(long updatedAtKey, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((updatedAtKey + ":" + id).getBytes(StandardCharsets.UTF_8));
+    }
 
-        List<AnnouncementSearchProjection> combinedResults = Stream.concat(
-                titleResults.stream(),
-                tagResults.stream().filter(result -> !foundIds.contains(result.getId()))).collect(Collectors.toList());
+    /**
+     * Decodes a cursor made by {@link #encodeCursor(long, long)}.
+     *
+     * @return the update date key and the id of the announcement
+     * @throws ResponseStatusException if the cursor is invalid
+     */
+    private static long[] decodeCursor(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return new long[] { Long.parseLong(parts[0]), Long.parseLong(parts[1]) };
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
 
-        return combinedResults;
+    /**
+     * Turns a user's search into an FTS5 query matching announcements that
+     * contain every word of the search, each word also matching the words it
+     * is the beginning of.
+     * <p>
+     * Words are quoted, so that the search can't contain FTS5 operators.
+     *
+     * @param searchTerm the user's search
+     * @return the query, or an empty string if the search has no words
+     */
+    private static String toFullTextQuery(String searchTerm) {
+        return Arrays.stream(NON_WORD.split(searchTerm))
+                .filter(word -> !word.isEmpty())
+                .map(word -> "\"" + word + "\"*")
+                .collect(Collectors.joining(" "));
     }
 
     @Transactional
     public Announcement updateAnnouncement(Long id, String title, String body, List<String> tags, User currentUser,
             Set<String> roleRestrictionNames, boolean isPublic) {
-        Announcement announcement = announcementRepository.findById(id)
+        Announcement announcement = announcementRepository.findWithDetailsById(id)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Announcement not found"));
 
         // Only the poster or an admin can update the announcement
@@ -116,7 +226,7 @@ public class AnnouncementService {
 
         if (roleRestrictionNames != null) {
             Set<Role> roleRestrictions = roleRestrictionNames.stream()
-                    .map(roleName -> roleRepository.findByName(roleName)
+                    .map(roleName -> roleRegistry.findByName(roleName)
                             .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST,
                                     "Role not found: " + roleName)))
                     .collect(Collectors.toSet());
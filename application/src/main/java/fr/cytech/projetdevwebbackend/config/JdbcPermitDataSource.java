@@ -0,0 +1,154 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+/**
+ * DataSource only handing out a bounded number of connections at once,
+ * making the other callers wait for a permit.
+ * <p>
+ * SQLite's driver synchronizes every call, which pins virtual threads to
+ * their carrier thread while they run JDBC code. Without a bound, thousands
+ * of virtual threads waiting on the database would pin every carrier and
+ * stall the whole application. Waiting on this semaphore doesn't pin, so it
+ * keeps the number of threads inside the driver at most the number of
+ * permits.
+ * <p>
+ * A permit is taken when a connection is obtained, and released when it is
+ * closed. Closing this DataSource closes the wrapped one.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public class JdbcPermitDataSource extends DelegatingDataSource implements AutoCloseable {
+
+    private final Semaphore permits;
+    private final long timeoutMillis;
+
+    /**
+     * Wraps a DataSource.
+     *
+     * @param targetDataSource The DataSource to take connections from
+     * @param permits          Maximum number of connections handed out at once
+     * @param timeoutMillis    Time to wait for a permit before failing, in
+     *                         milliseconds
+     */
+    public JdbcPermitDataSource(DataSource targetDataSource, int permits, long timeoutMillis) {
+        super(targetDataSource);
+        if (permits < 1) {
+            throw new IllegalArgumentException("JDBC permits must be positive");
+        }
+        this.permits = new Semaphore(permits, true);
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        acquire();
+        try {
+            return withPermit(super.getConnection());
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        acquire();
+        try {
+            return withPermit(super.getConnection(username, password));
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of threads waiting for a connection.
+     *
+     * @return The number of waiting threads
+     */
+    public int getWaitingThreads() {
+        return permits.getQueueLength();
+    }
+
+    /**
+     * Closes the wrapped DataSource, if it can be closed.
+     *
+     * @throws Exception If the wrapped DataSource fails to close
+     */
+    @Override
+    public void close() throws Exception {
+        if (obtainTargetDataSource() instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void acquire() throws SQLException {
+        try {
+            if (!permits.tryAcquire(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLTransientConnectionException(
+                        "No JDBC permit available after " + timeoutMillis + "ms");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLTransientConnectionException("Interrupted while waiting for a JDBC permit", e);
+        }
+    }
+
+    /**
+     * Wraps a connection so that closing it releases its permit, only once.
+     */
+    private Connection withPermit(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class }, new PermitReleasingHandler(connection));
+    }
+
+    private class PermitReleasingHandler implements InvocationHandler {
+        private final Connection target;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "close":
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    } finally {
+                        if (released.compareAndSet(false, true)) {
+                            permits.release();
+                        }
+                    }
+                default:
+                    try {
+                        return method.invoke(target, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getTargetException();
+                    }
+            }
+        }
+    }
+}
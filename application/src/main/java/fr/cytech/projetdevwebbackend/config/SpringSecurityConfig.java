@@ -5,6 +5,7 @@ import java.util.Arrays;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -22,7 +23,9 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import fr.cytech.projetdevwebbackend.users.jwt.JwtAuthenticationEntryPoint;
 import fr.cytech.projetdevwebbackend.users.jwt.JwtAuthenticationFilter;
+import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.service.CustomUserDetailsService;
+import jakarta.servlet.DispatcherType;
 
 /**
  * Spring Security configuration class that sets up JWT-based authentication.
@@ -70,7 +73,9 @@ public class SpringSecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList("http://localhost:3000")); // adjust origin
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Cache-Control", "Content-Type"));
+        configuration.setAllowedHeaders(
+                Arrays.asList("Authorization", "Cache-Control", "Content-Type", "If-None-Match", "Range"));
+        configuration.setExposedHeaders(Arrays.asList("ETag", "Content-Range"));
         configuration.setAllowCredentials(true);
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
         source.registerCorsConfiguration("/**", configuration);
@@ -93,6 +98,15 @@ public class SpringSecurityConfig {
 
                 // Configure request authorization
                 .authorizeHttpRequests(auth -> auth
+                        // Asynchronous results are sent from a second dispatch,
+                        // without the token's authentication. The request itself
+                        // was already authorized.
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        // Metrics are for administrators only...
+                        .requestMatchers("/actuator/**").hasAuthority(Role.ROLE_ADMIN)
+                        // Avatars are loaded by image tags, which can't send a
+                        // token. Anonymous users get the default picture.
+                        .requestMatchers(HttpMethod.GET, "/api/users/*/avatar").permitAll()
                         // API needs auth...
                         .requestMatchers("/api/users/**").authenticated()
                         // Except authentication...
@@ -0,0 +1,72 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import java.util.Map;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * DataSource sending read-only transactions to a pool of read-only
+ * connections, and everything else to a single writer connection.
+ * <p>
+ * SQLite only ever lets one connection write at a time, so a bigger writer
+ * pool only makes writers wait on the database lock instead of on the pool.
+ * In WAL mode however, readers don't block the writer nor each other, so
+ * transactions marked with {@code @Transactional(readOnly = true)} run
+ * concurrently on the reader pool.
+ * <p>
+ * Connections are only obtained when the first statement runs, once the
+ * transaction has been started and is known to be read-only. Connections used
+ * outside of a transaction, such as by migrations, go to the writer. Spring
+ * Data doesn't give query methods a transaction, so repositories are marked
+ * {@code @Transactional(readOnly = true)} for their reads to reach the reader
+ * pool.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public class SqliteDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable {
+
+    private final HikariDataSource writer;
+    private final HikariDataSource reader;
+
+    /**
+     * Routes connections between two pools.
+     *
+     * @param writer Pool used for writes, holding a single connection
+     * @param reader Pool of read-only connections
+     */
+    public SqliteDataSource(HikariDataSource writer, HikariDataSource reader) {
+        this.writer = writer;
+        this.reader = reader;
+
+        ReadOnlyRoutingDataSource routing = new ReadOnlyRoutingDataSource();
+        routing.setTargetDataSources(Map.of(true, reader, false, writer));
+        routing.setDefaultTargetDataSource(writer);
+        routing.afterPropertiesSet();
+        setTargetDataSource(routing);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Closes both pools.
+     */
+    @Override
+    public void close() {
+        reader.close();
+        writer.close();
+    }
+
+    /**
+     * Picks the pool from the current transaction's read-only flag.
+     */
+    private static class ReadOnlyRoutingDataSource extends AbstractRoutingDataSource {
+        @Override
+        protected Object determineCurrentLookupKey() {
+            return TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+        }
+    }
+}
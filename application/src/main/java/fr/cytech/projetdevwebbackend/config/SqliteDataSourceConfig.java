@@ -0,0 +1,118 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.sqlite.SQLiteConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration of the SQLite connections.
+ * <p>
+ * Every connection is opened with the pragmas below, then split between a
+ * writer and a reader pool by {@link SqliteDataSource}:
+ * <ul>
+ * <li>{@code journal_mode=WAL}, so that readers and the writer don't block
+ * each other</li>
+ * <li>{@code synchronous=NORMAL}, only syncing at checkpoints, which is safe
+ * in WAL mode</li>
+ * <li>{@code busy_timeout}, waiting for the lock instead of failing with
+ * {@code SQLITE_BUSY}</li>
+ * <li>{@code mmap_size} and {@code cache_size}, reading pages from memory
+ * rather than with system calls</li>
+ * <li>{@code temp_store=MEMORY}, keeping sorts and temporary tables off
+ * disk</li>
+ * </ul>
+ * The pools publish the usual {@code hikaricp.*} metrics, named
+ * {@code sqlite-writer} and {@code sqlite-reader}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Configuration
+@Slf4j
+public class SqliteDataSourceConfig {
+
+    /**
+     * Creates the writer and reader pools, and the DataSource routing between
+     * them.
+     *
+     * @param properties     Connection settings from {@code spring.datasource}
+     * @param meterRegistry  Registry to publish the pool metrics to
+     * @param readerPoolSize Number of reader connections, or 0 for one per
+     *                       core
+     * @param busyTimeout    Time to wait for the database lock, in
+     *                       milliseconds
+     * @param mmapSize       Bytes of the database mapped in memory
+     * @param cacheSize      Page cache size, in pages if positive, or in KiB if
+     *                       negative
+     * @return The DataSource used by the application
+     */
+    @Bean
+    public SqliteDataSource dataSource(DataSourceProperties properties, MeterRegistry meterRegistry,
+            @Value("${app.datasource.reader-pool-size:0}") int readerPoolSize,
+            @Value("${app.datasource.sqlite.busy-timeout-milliseconds:5000}") int busyTimeout,
+            @Value("${app.datasource.sqlite.mmap-size:268435456}") long mmapSize,
+            @Value("${app.datasource.sqlite.cache-size:-16000}") int cacheSize) {
+        SQLiteConfig sqlite = new SQLiteConfig();
+        sqlite.setBusyTimeout(busyTimeout);
+        sqlite.setCacheSize(cacheSize);
+        sqlite.setPragma(SQLiteConfig.Pragma.MMAP_SIZE, Long.toString(mmapSize));
+        sqlite.setTempStore(SQLiteConfig.TempStore.MEMORY);
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+
+        // The writer is created first, since it switches the database to WAL
+        // mode, which the read-only connections can't do
+        SQLiteConfig writerConfig = new SQLiteConfig(sqlite.toProperties());
+        writerConfig.setJournalMode(SQLiteConfig.JournalMode.WAL);
+        writerConfig.setSynchronous(SQLiteConfig.SynchronousMode.NORMAL);
+        HikariDataSource writer = createPool(properties, writerConfig, "sqlite-writer", 1, false, metrics);
+
+        int readers = readerPoolSize > 0 ? readerPoolSize : Runtime.getRuntime().availableProcessors();
+        SQLiteConfig readerConfig = new SQLiteConfig(sqlite.toProperties());
+        readerConfig.setReadOnly(true);
+        HikariDataSource reader = createPool(properties, readerConfig, "sqlite-reader", readers, true, metrics);
+
+        log.info("SQLite uses 1 writer connection and {} reader connections", readers);
+        return new SqliteDataSource(writer, reader);
+    }
+
+    /**
+     * Releases connections at the end of each transaction, rather than when
+     * the session closes.
+     * <p>
+     * With open-in-view, a session lives for the whole request and runs
+     * several transactions. Holding its first connection would run every
+     * transaction on the pool picked by the first one.
+     *
+     * @return The customizer setting the connection handling mode
+     */
+    @Bean
+    public HibernatePropertiesCustomizer connectionHandlingCustomizer() {
+        return hibernateProperties -> hibernateProperties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    private static HikariDataSource createPool(DataSourceProperties properties, SQLiteConfig sqlite,
+            String name, int size, boolean readOnly, MicrometerMetricsTrackerFactory metrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(name);
+        config.setDriverClassName(properties.determineDriverClassName());
+        config.setJdbcUrl(properties.determineUrl());
+        config.setDataSourceProperties(sqlite.toProperties());
+        config.setMaximumPoolSize(size);
+        config.setReadOnly(readOnly);
+        config.setMetricsTrackerFactory(metrics);
+        return new HikariDataSource(config);
+    }
+}
@@ -0,0 +1,75 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Configuration applied when requests run on virtual threads.
+ * <p>
+ * Virtual threads are enabled with {@code spring.threads.virtual.enabled}, on
+ * Java 21 or later. Spring Boot then runs Tomcat's requests, {@code @Async}
+ * methods and scheduled tasks on virtual threads. Password hashing keeps its
+ * own platform threads, since it is CPU bound.
+ * <p>
+ * Since the SQLite driver pins virtual threads, the DataSource is wrapped in
+ * a {@link JdbcPermitDataSource}, limiting the number of threads inside the
+ * driver to {@code app.datasource.jdbc-permits}, by default the number of
+ * cores. The number of threads waiting for a permit is published as the
+ * {@code jdbc.permits.waiting} metric.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+@Slf4j
+public class VirtualThreadConfig {
+
+    /**
+     * Wraps the DataSource in a {@link JdbcPermitDataSource}.
+     *
+     * @param environment   Environment holding the permit settings
+     * @param meterRegistry Registry to publish the waiting threads to
+     * @return The post processor wrapping the DataSource
+     */
+    @Bean
+    static BeanPostProcessor jdbcPermitDataSourcePostProcessor(Environment environment,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof JdbcPermitDataSource) {
+                    return bean;
+                }
+
+                int permits = environment.getProperty("app.datasource.jdbc-permits", Integer.class, 0);
+                if (permits <= 0) {
+                    permits = Runtime.getRuntime().availableProcessors();
+                }
+                long timeout = environment.getProperty("app.datasource.jdbc-permit-timeout-milliseconds",
+                        Long.class, 30000L);
+
+                JdbcPermitDataSource bounded = new JdbcPermitDataSource(dataSource, permits, timeout);
+                meterRegistry.ifAvailable(registry -> Gauge
+                        .builder("jdbc.permits.waiting", bounded, JdbcPermitDataSource::getWaitingThreads)
+                        .tag("name", beanName)
+                        .description("Threads waiting for a JDBC permit")
+                        .register(registry));
+                log.info("Virtual threads enabled, DataSource {} limited to {} concurrent connections", beanName,
+                        permits);
+                return bounded;
+            }
+        };
+    }
+}
@@ -6,11 +6,11 @@ import java.util.Map;
 import java.util.Optional;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,9 +23,8 @@ import fr.cytech.projetdevwebbackend.devices.model.DeviceReport;
 import fr.cytech.projetdevwebbackend.devices.model.projections.DeviceReportProjection;
 import fr.cytech.projetdevwebbackend.devices.model.repository.DeviceReportRepository;
 import fr.cytech.projetdevwebbackend.devices.services.DeviceManagementService;
-import fr.cytech.projetdevwebbackend.users.jwt.JwtTokenProvider;
+import fr.cytech.projetdevwebbackend.users.jwt.CurrentUser;
 import fr.cytech.projetdevwebbackend.users.model.User;
-import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import fr.cytech.projetdevwebbackend.users.service.UserAdministrationService;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
@@ -36,67 +35,43 @@ import lombok.extern.slf4j.Slf4j;
 public class DeviceController {
 
     private final DeviceManagementService deviceService;
-    private final UserRepository userRepository;
     private final UserAdministrationService userAdministrationService;
-    private final JwtTokenProvider jwtTokenProvider;
     private final DeviceReportRepository deviceReportRepository;
 
     @Autowired
     public DeviceController(DeviceManagementService deviceService,
-            UserAdministrationService userAdministrationService, JwtTokenProvider jwtTokenProvider,
-            DeviceReportRepository deviceReportRepository, UserRepository userRepository) {
+            UserAdministrationService userAdministrationService,
+            DeviceReportRepository deviceReportRepository) {
         this.deviceService = deviceService;
         this.userAdministrationService = userAdministrationService;
-        this.jwtTokenProvider = jwtTokenProvider;
         this.deviceReportRepository = deviceReportRepository;
-        this.userRepository = userRepository;
     }
 
     @PostMapping("/create")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> createDevice(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> createDevice(@CurrentUser User user,
             @RequestBody @Valid DeviceDto dto) {
         // If user's SCORE is below 20, do not allow device creation.
-        Optional<User> user = userRepository.findByUsername(jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                username -> {
-                    return username;
-                }));
-        if (user.isPresent() && user.get().getScore() < 20) {
-            log.warn("User {} has insufficient score to create a device", user.get().getUsername());
+        if (userAdministrationService.getUserScore(user.getUsername()) < 20) {
+            log.warn("User {} has insufficient score to create a device", user.getUsername());
             return ResponseEntity.badRequest().body(Map.of("message", "Insufficient score to create a device"));
         }
-        if (user.isEmpty()) {
-            log.warn("User not found");
-            return ResponseEntity.badRequest().body(Map.of("message", "User not found"));
-        }
 
         log.info("Creating device: {}", dto.getName());
         Device saved = deviceService.createDevice(dto);
-        jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                },
-                username -> {
-                    userAdministrationService.addScore(username, 1);
-                });
+        userAdministrationService.addScore(user.getUsername(), 1);
         return ResponseEntity.ok(Map.of("message", "Device created successfully", "device", saved));
     }
 
     @PostMapping("/get")
-    public ResponseEntity<?> getDevice(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> getDevice(@CurrentUser(required = false) String username,
             @RequestBody @Valid DeviceIdDto idDto) {
         log.debug("Fetching device with id: {}", idDto.getId());
         Optional<Device> found = deviceService.getDevice(idDto.getId());
         return found.map(device -> {
-            jwtTokenProvider.extractUsername(token).fold(
-                    err -> {
-                    },
-                    username -> {
-                        userAdministrationService.addScore(username, 1);
-                    });
+            if (username != null) {
+                userAdministrationService.addScore(username, 1);
+            }
             return ResponseEntity.ok(Map.of("message", "Device fetched successfully", "device", device));
         }).orElseGet(() -> {
             log.warn("Device with id {} not found", idDto.getId());
@@ -106,36 +81,19 @@ public class DeviceController {
 
     @PostMapping("/update")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> updateDevice(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> updateDevice(@CurrentUser User user,
             @RequestBody @Valid DeviceDto dto) {
 
         // If user's SCORE is below 20, do not allow device update.
-        Optional<User> user = userRepository.findByUsername(jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                username -> {
-                    return username;
-                }));
-        if (user.isPresent() && user.get().getScore() < 20) {
-            log.warn("User {} has insufficient score to update a device", user.get().getUsername());
+        if (userAdministrationService.getUserScore(user.getUsername()) < 20) {
+            log.warn("User {} has insufficient score to update a device", user.getUsername());
             return ResponseEntity.badRequest().body(Map.of("message", "Insufficient score to update a device"));
         }
-        if (user.isEmpty()) {
-            log.warn("User not found");
-            return ResponseEntity.badRequest().body(Map.of("message", "User not found"));
-        }
 
         log.debug("Updating device with id: {}", dto.getId());
         Optional<Device> updated = deviceService.updateDevice(dto.getId(), dto);
         return updated.map(device -> {
-            jwtTokenProvider.extractUsername(token).fold(
-                    err -> {
-                    },
-                    username -> {
-                        userAdministrationService.addScore(username, 1);
-                    });
+            userAdministrationService.addScore(user.getUsername(), 1);
             return ResponseEntity.ok(Map.of("message", "Device updated successfully", "device", device));
         }).orElseGet(() -> {
             log.warn("Device with id {} not found", dto.getId());
@@ -145,36 +103,19 @@ public class DeviceController {
 
     @PostMapping("/delete")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> deleteDevice(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> deleteDevice(@CurrentUser User user,
             @RequestBody @Valid DeviceIdDto idDto) {
 
         // If user's SCORE is below 20, do not allow device deletion
-        Optional<User> user = userRepository.findByUsername(jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                username -> {
-                    return username;
-                }));
-        if (user.isPresent() && user.get().getScore() < 20) {
-            log.warn("User {} has insufficient score to delete a device", user.get().getUsername());
+        if (userAdministrationService.getUserScore(user.getUsername()) < 20) {
+            log.warn("User {} has insufficient score to delete a device", user.getUsername());
             return ResponseEntity.badRequest().body(Map.of("message", "Insufficient score to delete a device"));
         }
-        if (user.isEmpty()) {
-            log.warn("User not found");
-            return ResponseEntity.badRequest().body(Map.of("message", "User not found"));
-        }
 
         log.debug("Deleting device with id: {}", idDto.getId());
         boolean deleted = deviceService.deleteDevice(idDto.getId());
         if (deleted) {
-            jwtTokenProvider.extractUsername(token).fold(
-                    err -> {
-                    },
-                    username -> {
-                        userAdministrationService.addScore(username, 1);
-                    });
+            userAdministrationService.addScore(user.getUsername(), 1);
             return ResponseEntity.ok(Map.of("message", "Device deleted successfully"));
         } else {
             log.warn("Device with id {} not found", idDto.getId());
@@ -183,18 +124,23 @@ public class DeviceController {
     }
 
     @PostMapping("/search")
-    public ResponseEntity<?> searchDevices(@RequestHeader(value = "Authorization", required = false) String token,
+    public ResponseEntity<?> searchDevices(@CurrentUser(required = false) String username,
             @RequestBody @Valid DeviceSearchDto dto) {
         log.debug("Searching devices with name: {}", dto.getQuery());
-        var found = deviceService.searchDevices(dto.getQuery());
-        // Increase user score if the token contains a user
-        jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                },
-                username -> {
-                    userAdministrationService.addScore(username, 1);
-                });
-        return ResponseEntity.ok(Map.of("message", "Devices fetched successfully", "devices", found));
+        var found = deviceService.searchDevices(dto.getQuery(), dto.getCursor(),
+                PageRequest.of(dto.getPage(), dto.getSize()));
+        // Increase user score if the request is authenticated
+        if (username != null) {
+            userAdministrationService.addScore(username, 1);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Devices fetched successfully");
+        response.put("devices", found.getContent());
+        response.put("hasNext", found.hasNext());
+        if (found.hasNext()) {
+            response.put("nextCursor", found.getContent().get(found.getNumberOfElements() - 1).getId());
+        }
+        return ResponseEntity.ok(response);
     }
 
     /**
@@ -202,45 +148,30 @@ public class DeviceController {
      * <p>
      * Requires USER role.
      *
-     * @param token     The authentication token
+     * @param reporter  The authenticated user
      * @param reportDto DTO containing the device ID and reason
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/report")
-    public ResponseEntity<?> reportDevice(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> reportDevice(@CurrentUser User reporter,
             @RequestBody @Valid DeviceReportDto reportDto) {
 
-        // Extract the reporter's username from the token
-        String reporterUsername = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (reporterUsername == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
-        // Validate that user and device exist
-        Optional<User> reporter = userRepository.findByUsername(reporterUsername);
+        // Validate that the device exists
         Optional<Device> device = deviceService.getDevice(reportDto.getDeviceId());
 
-        if (reporter.isEmpty() || device.isEmpty()) {
+        if (device.isEmpty()) {
             Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "User or device not found");
+            errorResponse.put("message", "Device not found");
             return ResponseEntity.badRequest().body(errorResponse);
         }
 
         // Create and save the report
-        DeviceReport report = new DeviceReport(reporter.get(), device.get(), reportDto.getReason());
+        DeviceReport report = new DeviceReport(reporter, device.get(), reportDto.getReason());
 
         try {
             deviceReportRepository.save(report);
-            log.info("User {} reported device ID {} for: {}", reporterUsername, reportDto.getDeviceId(),
+            log.info("User {} reported device ID {} for: {}", reporter.getUsername(), reportDto.getDeviceId(),
                     reportDto.getReason());
 
             Map<String, Object> response = new HashMap<>();
@@ -1,5 +1,7 @@
 package fr.cytech.projetdevwebbackend.devices.dto;
 
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -7,7 +9,11 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 /**
- * DTO for transferring device information.
+ * DTO for device search requests.
+ * <p>
+ * Results are paginated. Clients can either request pages by number, or pass
+ * the id of the last device they received as a cursor, which stays fast no
+ * matter how deep they page.
  */
 @Getter
 @Setter
@@ -16,4 +22,15 @@ import lombok.Setter;
 public class DeviceSearchDto {
     @NotNull
     private String query;
+
+    @Min(0)
+    private int page = 0;
+
+    @Min(1)
+    @Max(100)
+    private int size = 20;
+
+    /** Id of the last device of the previous page, takes precedence over page */
+    @Min(0)
+    private Long cursor;
 }
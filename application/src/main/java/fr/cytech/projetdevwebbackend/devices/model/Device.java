@@ -1,7 +1,9 @@
 package fr.cytech.projetdevwebbackend.devices.model;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
@@ -14,7 +16,10 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
 import jakarta.validation.constraints.NotBlank;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
@@ -27,9 +32,11 @@ import lombok.extern.slf4j.Slf4j;
  * Entity representing a device for the platform.
  * <p>
  * Devices hold a name identifier and a set of arbitrary properties stored as
- * JSON.
+ * a Smile (binary JSON) document.
  * The properties can be any key-value pairs that describe or configure the
- * device.
+ * device. They are parsed at most once per load and serialized at most once
+ * per flush, so editing several properties costs a single round trip through
+ * Smile.
  *
  * @author fleefie
  * @since 2025-03-22
@@ -40,8 +47,14 @@ import lombok.extern.slf4j.Slf4j;
 @NoArgsConstructor
 @Slf4j
 public class Device {
-    /** Shared ObjectMapper instance for JSON conversion */
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+    /** Storage format of the properties */
+    private static final JsonColumn.Format PROPERTIES_FORMAT = JsonColumn.Format.SMILE;
+
+    /** Shared ObjectMapper instance for property conversion */
+    private static final ObjectMapper OBJECT_MAPPER = PROPERTIES_FORMAT.mapper();
+
+    private static final TypeReference<LinkedHashMap<String, Object>> PROPERTIES_TYPE = new TypeReference<>() {
+    };
 
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -55,55 +68,50 @@ public class Device {
     @Setter
     private String name;
 
-    @NonNull
-    @Column(nullable = false, columnDefinition = "TEXT")
-    @JsonColumn
-    private String properties = "{}";
+    /**
+     * Serialized properties, as stored in the database.
+     * <p>
+     * Set to null while the parsed properties hold changes that have not been
+     * serialized yet, which also marks the entity as dirty for Hibernate.
+     */
+    @Column(nullable = false, columnDefinition = "BLOB")
+    @JsonColumn(format = JsonColumn.Format.SMILE)
+    private byte[] properties;
+
+    /** Parsed properties, materialized on first access */
+    @Transient
+    private Map<String, Object> parsedProperties;
+
+    /** Last serialized properties, restored if serializing changes fails */
+    @Transient
+    private byte[] serializedProperties;
 
     /**
      * Gets the device properties as a Map.
      * <p>
-     * Deserializes the JSON properties string into a Map of String keys
-     * and Object values. Returns an empty map if properties is null or
-     * if deserialization fails.
+     * The JSON properties are parsed on first access only. The returned map is
+     * a read-only view, use {@link #setProperty(String, Object)} and
+     * {@link #removeProperty(String)} to change it. Nested values must not be
+     * modified in place. Returns an empty map if the properties cannot be
+     * parsed.
      *
      * @return Map of property key-value pairs
      */
     public Map<String, Object> getProperties() {
-        if (properties == null || properties.isEmpty()) {
-            return new HashMap<>();
-        }
-
-        try {
-            return OBJECT_MAPPER.readValue(properties, new TypeReference<Map<String, Object>>() {
-            });
-        } catch (JsonProcessingException e) {
-            log.error("Failed to deserialize properties JSON for device {}: {}", name, e.getMessage());
-            return new HashMap<>();
-        }
+        return Collections.unmodifiableMap(parsedProperties());
     }
 
     /**
      * Sets the device properties from a Map.
      * <p>
-     * Serializes the given Map to a JSON string and stores it in the properties
-     * field.
-     * If serialization fails, the properties remain unchanged.
+     * The map is copied, and only serialized to JSON when the device is
+     * flushed.
      *
      * @param properties Map of property key-value pairs to set
      */
     public void setProperties(Map<String, Object> properties) {
-        if (properties == null) {
-            this.properties = "{}";
-            return;
-        }
-
-        try {
-            this.properties = OBJECT_MAPPER.writeValueAsString(properties);
-        } catch (JsonProcessingException e) {
-            log.error("Failed to serialize properties for device {}: {}", name, e.getMessage());
-            // Keep existing properties in case of error
-        }
+        parsedProperties = properties == null ? new LinkedHashMap<>() : new LinkedHashMap<>(properties);
+        markPropertiesDirty();
     }
 
     /**
@@ -113,7 +121,7 @@ public class Device {
      * @return The property value, or null if the key doesn't exist
      */
     public Object getProperty(String key) {
-        return getProperties().get(key);
+        return parsedProperties().get(key);
     }
 
     /**
@@ -123,9 +131,8 @@ public class Device {
      * @param value The property value
      */
     public void setProperty(String key, Object value) {
-        Map<String, Object> props = getProperties();
-        props.put(key, value);
-        setProperties(props);
+        parsedProperties().put(key, value);
+        markPropertiesDirty();
     }
 
     /**
@@ -135,19 +142,78 @@ public class Device {
      * @return The previous value, or null if the key didn't exist
      */
     public Object removeProperty(String key) {
-        Map<String, Object> props = getProperties();
+        Map<String, Object> props = parsedProperties();
+        if (!props.containsKey(key)) {
+            return null;
+        }
         Object previous = props.remove(key);
-        setProperties(props);
+        markPropertiesDirty();
         return previous;
     }
 
+    /**
+     * Parses the JSON properties, if they haven't been parsed yet.
+     *
+     * @return the mutable parsed properties
+     */
+    private Map<String, Object> parsedProperties() {
+        if (parsedProperties != null) {
+            return parsedProperties;
+        }
+
+        Map<String, Object> parsed = null;
+        if (properties != null && properties.length > 0) {
+            try {
+                parsed = OBJECT_MAPPER.readValue(properties, PROPERTIES_TYPE);
+            } catch (IOException e) {
+                log.error("Failed to deserialize properties for device {}: {}", name, e.getMessage());
+            }
+        }
+        parsedProperties = parsed != null ? parsed : new LinkedHashMap<>();
+        return parsedProperties;
+    }
+
+    /**
+     * Marks the parsed properties as needing to be serialized.
+     */
+    private void markPropertiesDirty() {
+        if (properties != null) {
+            serializedProperties = properties;
+            properties = null;
+        }
+    }
+
+    /**
+     * Serializes changed properties back to their storage format, once per
+     * flush.
+     * <p>
+     * If serialization fails, the last serialized properties are kept.
+     */
+    @PrePersist
+    @PreUpdate
+    private void serializeProperties() {
+        if (properties != null) {
+            return;
+        }
+
+        try {
+            properties = OBJECT_MAPPER.writeValueAsBytes(parsedProperties());
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialize properties for device {}: {}", name, e.getMessage());
+            // Fall back to the last serialized properties, or to no properties at all
+            properties = serializedProperties != null ? serializedProperties : new byte[0];
+            parsedProperties = null;
+        }
+        serializedProperties = null;
+    }
+
     /**
      * Creates a new Device with the given name and empty properties.
      *
      * @param name The device name
      */
     public Device(String name) {
-        this(name, "{}");
+        this(name, new LinkedHashMap<>());
     }
 
     /**
@@ -158,7 +224,15 @@ public class Device {
      */
     public Device(String name, String properties) {
         this.name = name;
-        this.properties = properties == null || properties.isEmpty() ? "{}" : properties;
+        Map<String, Object> parsed = null;
+        if (properties != null && !properties.isEmpty()) {
+            try {
+                parsed = JsonColumn.Format.JSON.mapper().readValue(properties, PROPERTIES_TYPE);
+            } catch (JsonProcessingException e) {
+                log.error("Failed to deserialize properties JSON for device {}: {}", name, e.getMessage());
+            }
+        }
+        setProperties(parsed);
     }
 
     /**
@@ -188,7 +262,7 @@ public class Device {
 
         // Add properties summary
         try {
-            Map<String, Object> props = getProperties();
+            Map<String, Object> props = parsedProperties();
             int propCount = props.size();
 
             sb.append(", properties=");
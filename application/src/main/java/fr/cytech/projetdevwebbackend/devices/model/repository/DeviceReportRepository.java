@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.devices.model.Device;
 import fr.cytech.projetdevwebbackend.devices.model.DeviceReport;
@@ -16,6 +17,7 @@ import fr.cytech.projetdevwebbackend.users.model.User;
  * Repository for managing device reports.
  */
 @Repository
+@Transactional(readOnly = true)
 public interface DeviceReportRepository extends JpaRepository<DeviceReport, Long> {
 
     List<DeviceReport> findByReporter(User reporter);
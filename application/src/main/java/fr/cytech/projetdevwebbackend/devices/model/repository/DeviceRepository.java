@@ -1,9 +1,8 @@
 package fr.cytech.projetdevwebbackend.devices.model.repository;
 
-import java.util.List;
-
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.devices.model.Device;
 import fr.cytech.projetdevwebbackend.jpa.repository.JsonRepositoryFragment;
@@ -15,6 +14,6 @@ import fr.cytech.projetdevwebbackend.jpa.repository.JsonRepositoryFragment;
  * @since 2025-03-22
  */
 @Repository
+@Transactional(readOnly = true)
 public interface DeviceRepository extends JpaRepository<Device, Long>, JsonRepositoryFragment<Device, Long> {
-    List<Device> findByNameContainingIgnoreCase(String name);
 }
@@ -1,21 +1,23 @@
 package fr.cytech.projetdevwebbackend.devices.services;
 
-import java.util.List;
 import java.util.Optional;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 
 import fr.cytech.projetdevwebbackend.devices.dto.DeviceDto;
 import fr.cytech.projetdevwebbackend.devices.model.Device;
 import fr.cytech.projetdevwebbackend.devices.model.repository.DeviceRepository;
-import jakarta.transaction.Transactional;
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * Service for handling devices.
+ * <p>
+ * Changes to devices are run on the {@link WriteQueue}.
  *
  * @author fleefie
  * @since 2025-03-24
@@ -25,46 +27,55 @@ import lombok.extern.slf4j.Slf4j;
 public class DeviceManagementService {
 
     private final DeviceRepository deviceRepository;
+    private final WriteQueue writeQueue;
 
     @Autowired
-    public DeviceManagementService(DeviceRepository deviceRepository) {
+    public DeviceManagementService(DeviceRepository deviceRepository, WriteQueue writeQueue) {
         this.deviceRepository = deviceRepository;
+        this.writeQueue = writeQueue;
     }
 
-    @Transactional
     public Device createDevice(DeviceDto dto) {
-        Device device = new Device(dto.getName(), dto.getProperties());
-        return deviceRepository.save(device);
+        return writeQueue.execute(() -> {
+            Device device = new Device(dto.getName(), dto.getProperties());
+            return deviceRepository.save(device);
+        });
     }
 
     public Optional<Device> getDevice(Long id) {
         return deviceRepository.findById(id);
     }
 
-    @Transactional
     public Optional<Device> updateDevice(Long id, DeviceDto dto) {
-        return deviceRepository.findById(id).map(existing -> {
+        return writeQueue.execute(() -> deviceRepository.findById(id).map(existing -> {
             existing.setName(dto.getName());
             existing.setProperties(dto.getProperties());
             return deviceRepository.save(existing);
-        });
+        }));
     }
 
-    @Transactional
     public boolean deleteDevice(Long id) {
-        return deviceRepository.findById(id).map(device -> {
+        return writeQueue.execute(() -> deviceRepository.findById(id).map(device -> {
             deviceRepository.delete(device);
             return true;
-        }).orElse(false);
+        }).orElse(false));
     }
 
-    public List<Device> searchDevices(String searchText) {
-        List<Device> byName = deviceRepository.findByNameContainingIgnoreCase(searchText);
-        List<Device> byJson = deviceRepository.jsonSearchByValue(searchText);
-
-        // Combine and remove duplicates
-        return Stream.concat(byName.stream(), byJson.stream())
-                .distinct()
-                .collect(Collectors.toList());
+    /**
+     * Finds a slice of the devices whose name or properties contain the search
+     * text, ignoring case, ordered by id.
+     *
+     * @param searchText the text to search for
+     * @param cursor     id of the last device already returned, or null to use
+     *                   the page number of the pageable instead
+     * @param pageable   the slice to fetch
+     * @return the matching devices
+     */
+    public Slice<Device> searchDevices(String searchText, Long cursor, Pageable pageable) {
+        if (cursor != null) {
+            return deviceRepository.jsonSearchByValueOrProperty("name", searchText, cursor,
+                    PageRequest.of(0, pageable.getPageSize()));
+        }
+        return deviceRepository.jsonSearchByValueOrProperty("name", searchText, null, pageable);
     }
 }
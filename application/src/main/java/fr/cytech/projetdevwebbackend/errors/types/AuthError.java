@@ -37,7 +37,8 @@ public enum AuthError implements Error {
 
     // System errors
     AUTHENTICATION_ERROR("Authentication error occurred"),
-    ROLE_NOT_FOUND("Required role not found");
+    ROLE_NOT_FOUND("Required role not found"),
+    SERVER_BUSY("Too many authentication requests, try again later");
 
     private final String message;
 
@@ -11,7 +11,11 @@ public enum FileError implements fr.cytech.projetdevwebbackend.errors.types.Erro
     EMPTY_FILE("File is empty"),
     TRIED_TO_STORE_OUTSIDE_OF_ROOT("Attempted to store file outside of root path"),
     BAD_JSON("Object is bad JSON"),
-    JSON_PROCESSING("Unable to serialize object");
+    JSON_PROCESSING("Unable to serialize object"),
+    INVALID_IMAGE("File is not a PNG, JPEG or GIF image"),
+    IMAGE_TOO_LARGE("Image dimensions are too large"),
+    FILE_TOO_LARGE("File is too large"),
+    TOO_MANY_UPLOADS("Too many uploads in progress, try again later");
 
     private final String message;
 
@@ -1,19 +1,27 @@
 package fr.cytech.projetdevwebbackend.jpa.annotation;
 
+import java.io.IOException;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.lang.annotation.Documented;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
 /**
  * Annotation to mark a field as containing JSON data for use with
  * JsonRepository.
  * <p>
  * Fields annotated with @JsonColumn are identified by JsonRepositoryImpl for
- * performing JSON-based queries. The annotated field must be of type String
- * and should contain valid JSON content.
- * 
+ * performing JSON-based queries. With the default {@link Format#JSON} format,
+ * the annotated field must be of type String and should contain valid JSON
+ * content. With a binary format, the field must be a byte[] holding a
+ * document encoded in that format.
+ *
  * @author fleefie
  * @since 2025-03-22
  */
@@ -21,4 +29,75 @@ import java.lang.annotation.Documented;
 @Retention(RetentionPolicy.RUNTIME)
 @Target(ElementType.FIELD)
 public @interface JsonColumn {
+
+    /**
+     * Storage format of the document.
+     *
+     * @return the format of the column
+     */
+    Format format() default Format.JSON;
+
+    /**
+     * Storage formats for JSON documents.
+     * <p>
+     * Binary formats hold the same data model as JSON, but are smaller and
+     * faster to parse since they don't need any text scanning.
+     *
+     * @since 2026-10-17
+     */
+    enum Format {
+        /** JSON text, stored as TEXT */
+        JSON(new ObjectMapper()),
+        /** Jackson's binary JSON, which also deduplicates repeated keys, stored as BLOB */
+        SMILE(new ObjectMapper(new SmileFactory())),
+        /** RFC 8949 Concise Binary Object Representation, stored as BLOB */
+        CBOR(new ObjectMapper(new CBORFactory()));
+
+        private final ObjectMapper mapper;
+
+        Format(ObjectMapper mapper) {
+            this.mapper = mapper;
+        }
+
+        /**
+         * Gets the ObjectMapper reading and writing this format.
+         *
+         * @return a shared ObjectMapper instance
+         */
+        public ObjectMapper mapper() {
+            return mapper;
+        }
+
+        /**
+         * Parses a stored document.
+         *
+         * @param stored the value of the column, either a String or a byte[]
+         * @return the parsed document, or null if there is no document
+         * @throws IOException if the document cannot be parsed
+         */
+        public JsonNode readTree(Object stored) throws IOException {
+            if (stored instanceof String text) {
+                return text.isEmpty() ? null : mapper.readTree(text);
+            }
+            if (stored instanceof byte[] bytes) {
+                return bytes.length == 0 ? null : mapper.readTree(bytes);
+            }
+            return null;
+        }
+
+        /**
+         * Converts a stored document to JSON text.
+         *
+         * @param stored the value of the column, either a String or a byte[]
+         * @return the document as JSON text, or null if there is no document
+         * @throws IOException if the document cannot be parsed
+         */
+        public String toJson(Object stored) throws IOException {
+            if (this == JSON) {
+                return stored instanceof String text ? text : null;
+            }
+            JsonNode tree = readTree(stored);
+            return tree == null ? null : JSON.mapper.writeValueAsString(tree);
+        }
+    }
 }
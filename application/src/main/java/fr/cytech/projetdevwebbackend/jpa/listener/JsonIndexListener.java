@@ -0,0 +1,244 @@
+package fr.cytech.projetdevwebbackend.jpa.listener;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+
+import fr.cytech.projetdevwebbackend.jpa.annotation.JsonColumn;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hibernate event listener keeping the {@code json_index} table in sync with
+ * fields annotated with {@link JsonColumn}.
+ * <p>
+ * Every JSON node of an indexed field is stored as one row, holding its path,
+ * its key and its normalized value. This lets JSON searches be answered from
+ * plain indexed SQL instead of walking every document. Documents stored in a
+ * binary format are converted to JSON text before being walked. The index is written
+ * on the same connection as the entity, so it is committed or rolled back
+ * along with it.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Slf4j
+@Component
+public class JsonIndexListener
+        implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private static final String DELETE_FIELD = "DELETE FROM json_index "
+            + "WHERE entity_type = ? AND entity_id = ? AND field = ?";
+
+    private static final String DELETE_ENTITY = "DELETE FROM json_index "
+            + "WHERE entity_type = ? AND entity_id = ?";
+
+    private static final String INSERT_FIELD = "INSERT INTO json_index "
+            + "(entity_type, entity_id, field, path, key, value_type, value_text, value_norm, value_num) "
+            + "SELECT ?, ?, ?, j.fullkey, "
+            + "CASE WHEN typeof(j.key) = 'text' THEN j.key END, "
+            + "j.type, "
+            + "CASE WHEN j.type IN ('object', 'array') THEN NULL "
+            + "WHEN j.type IN ('true', 'false', 'null') THEN j.type "
+            + "ELSE CAST(j.atom AS TEXT) END, "
+            + "CASE WHEN j.type IN ('object', 'array') THEN NULL "
+            + "WHEN j.type IN ('true', 'false', 'null') THEN j.type "
+            + "ELSE LOWER(CAST(j.atom AS TEXT)) END, "
+            + "CASE WHEN j.type IN ('integer', 'real') THEN j.atom END "
+            + "FROM json_tree(?) j";
+
+    private final SessionFactoryImplementor sessionFactory;
+
+    /** Indexed properties, by Hibernate entity name */
+    private final Map<String, IndexedEntity> indexedEntities = new HashMap<>();
+
+    @Autowired
+    public JsonIndexListener(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+    }
+
+    /**
+     * Discovers the JSON fields of every entity and registers this listener
+     * with Hibernate.
+     */
+    @PostConstruct
+    public void register() {
+        if (!(sessionFactory.getJdbcServices().getDialect() instanceof SQLiteDialect)) {
+            log.info("JSON index disabled, the database has no JSON support");
+            return;
+        }
+
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+                return;
+            }
+
+            List<IndexedProperty> properties = new ArrayList<>();
+            ReflectionUtils.doWithFields(persister.getMappedClass(), field -> {
+                if (field.isAnnotationPresent(JsonColumn.class)) {
+                    properties.add(new IndexedProperty(
+                            entityPersister.getPropertyIndex(field.getName()),
+                            entityPersister.getPropertyColumnNames(field.getName())[0],
+                            field.getAnnotation(JsonColumn.class).format()));
+                }
+            });
+
+            if (!properties.isEmpty()) {
+                String entityType = sessionFactory.getJpaMetamodel().entity(persister.getMappedClass()).getName();
+                indexedEntities.put(persister.getEntityName(), new IndexedEntity(entityType, properties));
+                log.info("Indexing JSON fields of {}", entityType);
+            }
+        });
+
+        if (indexedEntities.isEmpty()) {
+            return;
+        }
+
+        EventListenerRegistry registry = sessionFactory.getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        IndexedEntity entity = indexedEntities.get(event.getPersister().getEntityName());
+        if (entity == null) {
+            return;
+        }
+
+        for (IndexedProperty property : entity.properties()) {
+            reindex(event.getSession(), entity, property, event.getId(), event.getState()[property.index()]);
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        IndexedEntity entity = indexedEntities.get(event.getPersister().getEntityName());
+        if (entity == null) {
+            return;
+        }
+
+        for (IndexedProperty property : entity.properties()) {
+            if (isDirty(event.getDirtyProperties(), property.index())) {
+                reindex(event.getSession(), entity, property, event.getId(), event.getState()[property.index()]);
+            }
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        IndexedEntity entity = indexedEntities.get(event.getPersister().getEntityName());
+        if (entity == null) {
+            return;
+        }
+
+        event.getSession().doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_ENTITY)) {
+                delete.setString(1, entity.type());
+                delete.setObject(2, event.getId());
+                delete.executeUpdate();
+            }
+        });
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    /**
+     * Replaces the index rows of a single JSON field.
+     */
+    private void reindex(EventSource session, IndexedEntity entity, IndexedProperty property,
+            Object id, Object value) {
+        session.doWork(connection -> {
+            try (PreparedStatement delete = connection.prepareStatement(DELETE_FIELD)) {
+                delete.setString(1, entity.type());
+                delete.setObject(2, id);
+                delete.setString(3, property.column());
+                delete.executeUpdate();
+            }
+
+            String json = toJson(property.format(), value);
+            if (json == null || !isValidJson(connection, json)) {
+                log.debug("Not indexing {} of {} {}, not a JSON document", property.column(), entity.type(), id);
+                return;
+            }
+
+            try (PreparedStatement insert = connection.prepareStatement(INSERT_FIELD)) {
+                insert.setString(1, entity.type());
+                insert.setObject(2, id);
+                insert.setString(3, property.column());
+                insert.setString(4, json);
+                insert.executeUpdate();
+            }
+        });
+    }
+
+    /**
+     * Converts a stored document to JSON text, so that SQLite can walk it.
+     *
+     * @return the JSON text, or null if the value isn't a valid document
+     */
+    private static String toJson(JsonColumn.Format format, Object value) {
+        try {
+            return format.toJson(value);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static boolean isValidJson(Connection connection, String json) throws SQLException {
+        try (PreparedStatement valid = connection.prepareStatement("SELECT json_valid(?)")) {
+            valid.setString(1, json);
+            try (ResultSet result = valid.executeQuery()) {
+                return result.next() && result.getInt(1) == 1;
+            }
+        }
+    }
+
+    private static boolean isDirty(int[] dirtyProperties, int index) {
+        // Hibernate does not always know which properties changed
+        if (dirtyProperties == null) {
+            return true;
+        }
+        for (int dirty : dirtyProperties) {
+            if (dirty == index) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record IndexedEntity(String type, List<IndexedProperty> properties) {
+    }
+
+    private record IndexedProperty(int index, String column, JsonColumn.Format format) {
+    }
+}
@@ -0,0 +1,308 @@
+package fr.cytech.projetdevwebbackend.jpa.repository;
+
+import java.lang.reflect.Field;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import org.hibernate.MappingException;
+import org.hibernate.community.dialect.SQLiteDialect;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.domain.Sort;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates native SQL for JSON searches on fields annotated with
+ * {@link fr.cytech.projetdevwebbackend.jpa.annotation.JsonColumn}.
+ * <p>
+ * Searches are answered from the {@code json_index} table maintained by
+ * {@link fr.cytech.projetdevwebbackend.jpa.listener.JsonIndexListener}, which
+ * holds one row per JSON node, so that lookups go through SQLite indexes and
+ * only matching rows are ever hydrated. The matching rules mirror the Jackson
+ * based implementation of JsonRepositoryImpl, which is still used as a
+ * fallback for dialects without JSON support.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Slf4j
+class JsonQueryGenerator {
+
+    /** Alias of the entity table in generated queries */
+    private static final String ENTITY_ALIAS = "e";
+
+    private static final String NUMERIC = "j.value_type IN ('integer', 'real')";
+
+    private final String entityType;
+    private final String tableName;
+    private final String idColumn;
+    private final AbstractEntityPersister persister;
+
+    private JsonQueryGenerator(String entityType, AbstractEntityPersister persister) {
+        this.entityType = entityType;
+        this.tableName = persister.getIdentifierTableName();
+        this.idColumn = persister.getIdentifierColumnNames()[0];
+        this.persister = persister;
+    }
+
+    /**
+     * Creates a query generator for the given entity, if the underlying database
+     * supports JSON queries.
+     *
+     * @param entityManager the JPA entity manager
+     * @param domainClass   the entity class
+     * @param jsonFields    the fields annotated with @JsonColumn
+     * @return the generator, or an empty Optional if queries cannot be pushed
+     *         down for this entity
+     */
+    static Optional<JsonQueryGenerator> forEntity(EntityManager entityManager, Class<?> domainClass,
+            Collection<Field> jsonFields) {
+        if (jsonFields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        SessionFactoryImplementor sessionFactory = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class);
+        Dialect dialect = sessionFactory.getJdbcServices().getDialect();
+        if (!(dialect instanceof SQLiteDialect)) {
+            log.info("Dialect {} has no JSON support, {} will be searched in memory",
+                    dialect.getClass().getSimpleName(), domainClass.getSimpleName());
+            return Optional.empty();
+        }
+
+        EntityPersister persister = sessionFactory.getMappingMetamodel().getEntityDescriptor(domainClass);
+        if (!(persister instanceof AbstractEntityPersister entityPersister)) {
+            return Optional.empty();
+        }
+
+        String tableName = entityPersister.getIdentifierTableName();
+        for (Field field : jsonFields) {
+            // Only single-table entities are supported
+            if (!tableName.equals(entityPersister.getPropertyTableName(field.getName()))) {
+                return Optional.empty();
+            }
+        }
+
+        String entityType = sessionFactory.getJpaMetamodel().entity(domainClass).getName();
+        return Optional.of(new JsonQueryGenerator(entityType, entityPersister));
+    }
+
+    /**
+     * Builds a predicate matching entities containing the search text in any
+     * JSON value, ignoring case.
+     *
+     * @param searchText the text to search for
+     * @return the predicate
+     */
+    JsonPredicate byValue(String searchText) {
+        JsonPredicate predicate = new JsonPredicate(entityType);
+        predicate.parameters.put("pattern", "%" + escapeLike(searchText.toLowerCase()) + "%");
+        predicate.sql = anyNode("j.value_norm LIKE :pattern ESCAPE '\\'");
+        return predicate;
+    }
+
+    /**
+     * Builds a predicate matching entities containing the search text in a
+     * string property or in any JSON value, ignoring case.
+     *
+     * @param property   the name of the string property
+     * @param searchText the text to search for
+     * @return the predicate
+     * @throws IllegalArgumentException if the property isn't a single column
+     */
+    JsonPredicate byValueOrProperty(String property, String searchText) {
+        JsonPredicate predicate = byValue(searchText);
+        predicate.sql = "(LOWER(" + ENTITY_ALIAS + "." + columnOf(property) + ") LIKE :pattern ESCAPE '\\' OR "
+                + predicate.sql + ")";
+        return predicate;
+    }
+
+    /**
+     * Restricts a predicate to the entities whose id is greater than the given
+     * one, for keyset pagination.
+     *
+     * @param predicate the predicate to restrict
+     * @param id        the id of the last entity already seen
+     * @return the restricted predicate
+     */
+    JsonPredicate afterId(JsonPredicate predicate, Object id) {
+        predicate.parameters.put("afterId", id);
+        predicate.sql = ENTITY_ALIAS + "." + idColumn + " > :afterId AND " + predicate.sql;
+        return predicate;
+    }
+
+    /**
+     * Builds a predicate matching entities containing the given key at any depth.
+     *
+     * @param key the JSON key to search for
+     * @return the predicate
+     */
+    JsonPredicate byKey(String key) {
+        JsonPredicate predicate = new JsonPredicate(entityType);
+        predicate.parameters.put("key", key);
+        predicate.sql = anyNode("j.key = :key");
+        return predicate;
+    }
+
+    /**
+     * Builds a predicate matching entities where the given key holds the given
+     * value.
+     * <p>
+     * Numbers are compared numerically against numeric nodes, everything else is
+     * compared through its textual representation.
+     *
+     * @param key   the JSON key to match
+     * @param value the value the key should have
+     * @return the predicate
+     */
+    JsonPredicate byKeyAndValue(String key, Object value) {
+        JsonPredicate predicate = new JsonPredicate(entityType);
+        predicate.parameters.put("key", key);
+
+        String valueCondition;
+        if (value == null) {
+            valueCondition = "j.value_type = 'null'";
+        } else if (value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte) {
+            predicate.parameters.put("number", ((Number) value).longValue());
+            predicate.parameters.put("text", value.toString());
+            valueCondition = numericOrText();
+        } else if (value instanceof Float || value instanceof Double) {
+            predicate.parameters.put("number", ((Number) value).doubleValue());
+            predicate.parameters.put("text", value.toString());
+            valueCondition = numericOrText();
+        } else {
+            predicate.parameters.put("text", value.toString());
+            valueCondition = "j.value_text = :text";
+        }
+
+        predicate.sql = anyNode("j.key = :key AND " + valueCondition);
+        return predicate;
+    }
+
+    /**
+     * Builds the query selecting every entity matching the predicate.
+     *
+     * @param predicate the predicate to apply
+     * @return the native SQL query
+     */
+    String select(JsonPredicate predicate) {
+        return "SELECT " + ENTITY_ALIAS + ".* FROM " + tableName + " " + ENTITY_ALIAS
+                + " WHERE " + predicate.sql;
+    }
+
+    /**
+     * Builds the query selecting every entity matching the predicate, in the
+     * given order.
+     * <p>
+     * The id is always used as the last sort key, so that the order is stable
+     * across pages.
+     *
+     * @param predicate the predicate to apply
+     * @param sort      the order of the results, by entity property
+     * @return the native SQL query
+     * @throws IllegalArgumentException if the sort refers to an unknown or
+     *                                  unsortable property
+     */
+    String select(JsonPredicate predicate, Sort sort) {
+        StringJoiner orderBy = new StringJoiner(", ", " ORDER BY ", "");
+        for (Sort.Order order : sort) {
+            orderBy.add(ENTITY_ALIAS + "." + columnOf(order.getProperty()) + (order.isAscending() ? " ASC" : " DESC"));
+        }
+        orderBy.add(ENTITY_ALIAS + "." + idColumn + " ASC");
+        return select(predicate) + orderBy;
+    }
+
+    /**
+     * Builds a query returning a single row if any entity matches the predicate.
+     *
+     * @param predicate the predicate to apply
+     * @return the native SQL query
+     */
+    String exists(JsonPredicate predicate) {
+        return "SELECT 1 FROM " + tableName + " " + ENTITY_ALIAS + " WHERE " + predicate.sql + " LIMIT 1";
+    }
+
+    /**
+     * Builds a query counting the entities matching the predicate.
+     *
+     * @param predicate the predicate to apply
+     * @return the native SQL query
+     */
+    String count(JsonPredicate predicate) {
+        return "SELECT COUNT(*) FROM " + tableName + " " + ENTITY_ALIAS + " WHERE " + predicate.sql;
+    }
+
+    /**
+     * Resolves the column of a single column entity property.
+     */
+    private String columnOf(String property) {
+        if (property.equals(persister.getIdentifierPropertyName())) {
+            return idColumn;
+        }
+        try {
+            String[] columns = persister.getPropertyColumnNames(property);
+            if (columns.length == 1) {
+                return columns[0];
+            }
+        } catch (MappingException e) {
+            // Handled below
+        }
+        throw new IllegalArgumentException("Property " + property + " of " + entityType + " is not a single column");
+    }
+
+    /**
+     * Condition on a numeric node compared by value, or any other scalar node
+     * compared by text.
+     */
+    private static String numericOrText() {
+        return "((" + NUMERIC + " AND j.value_num = :number) OR (NOT " + NUMERIC + " AND j.value_text = :text))";
+    }
+
+    /**
+     * Wraps a condition on indexed JSON nodes so that it matches if any node of
+     * any JSON column of the entity satisfies it.
+     * <p>
+     * Malformed documents are never indexed, so they never match.
+     */
+    private String anyNode(String nodeCondition) {
+        return ENTITY_ALIAS + "." + idColumn + " IN (SELECT j.entity_id FROM json_index j "
+                + "WHERE j.entity_type = :entityType AND " + nodeCondition + ")";
+    }
+
+    /**
+     * Escapes LIKE wildcards so that the search text is matched literally.
+     */
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * A SQL condition on the entity table along with its named parameters.
+     */
+    static class JsonPredicate {
+        private String sql;
+        private final Map<String, Object> parameters = new HashMap<>();
+
+        private JsonPredicate(String entityType) {
+            parameters.put("entityType", entityType);
+        }
+
+        /**
+         * Binds the parameters of this predicate to a query.
+         *
+         * @param query the query to bind
+         */
+        void bind(Query query) {
+            parameters.forEach(query::setParameter);
+        }
+    }
+}
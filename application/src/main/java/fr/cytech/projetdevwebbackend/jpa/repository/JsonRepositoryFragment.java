@@ -2,6 +2,10 @@ package fr.cytech.projetdevwebbackend.jpa.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 /**
  * Repository fragment interface providing JSON query capabilities for entities.
@@ -27,6 +31,48 @@ public interface JsonRepositoryFragment<T, ID> {
      */
     List<T> jsonSearchByValue(String searchText);
 
+    /**
+     * Finds a slice of the entities containing the specified text in any JSON
+     * field.
+     *
+     * @param searchText the text to search for
+     * @param pageable   the page to fetch, results are ordered by id unless
+     *                   sorted otherwise
+     * @return slice of entities containing the search text
+     */
+    Slice<T> jsonSearchByValue(String searchText, Pageable pageable);
+
+    /**
+     * Finds a slice of the entities containing the specified text, ignoring
+     * case, either in a string property or in any JSON field.
+     * <p>
+     * Results are always ordered by id, and only the entities after the given
+     * id are returned, so that callers can page through them with the last id
+     * they got rather than with an offset.
+     *
+     * @param property   the name of the string property to search
+     * @param searchText the text to search for
+     * @param afterId    the id of the last entity already returned, or null to
+     *                   start from the first one
+     * @param pageable   the slice to fetch, its sort is ignored
+     * @return slice of entities containing the search text
+     * @throws IllegalArgumentException if the entity has no such property
+     */
+    Slice<T> jsonSearchByValueOrProperty(String property, String searchText, ID afterId, Pageable pageable);
+
+    /**
+     * Streams the entities containing the specified text in any JSON field.
+     * <p>
+     * Entities are read through a database cursor and detached from the
+     * persistence context once consumed, so changes made to them are not
+     * persisted. The stream must be closed, and must be consumed within a
+     * transaction.
+     *
+     * @param searchText the text to search for
+     * @return stream of entities containing the search text
+     */
+    Stream<T> jsonStreamByValue(String searchText);
+
     /**
      * Finds entities that have the specified key in any JSON field.
      *
@@ -35,6 +81,27 @@ public interface JsonRepositoryFragment<T, ID> {
      */
     List<T> jsonSearchByKey(String key);
 
+    /**
+     * Finds a slice of the entities that have the specified key in any JSON
+     * field.
+     *
+     * @param key      the JSON key to search for
+     * @param pageable the page to fetch, results are ordered by id unless
+     *                 sorted otherwise
+     * @return slice of entities having the specified key
+     */
+    Slice<T> jsonSearchByKey(String key, Pageable pageable);
+
+    /**
+     * Streams the entities that have the specified key in any JSON field.
+     * <p>
+     * See {@link #jsonStreamByValue(String)} for the stream's lifecycle.
+     *
+     * @param key the JSON key to search for
+     * @return stream of entities having the specified key
+     */
+    Stream<T> jsonStreamByKey(String key);
+
     /**
      * Finds entities where the specified key has the specified value in any JSON
      * field.
@@ -45,6 +112,30 @@ public interface JsonRepositoryFragment<T, ID> {
      */
     List<T> jsonSearchByKeyAndValue(String key, Object value);
 
+    /**
+     * Finds a slice of the entities where the specified key has the specified
+     * value in any JSON field.
+     *
+     * @param key      the JSON key to search for
+     * @param value    the value the key should have
+     * @param pageable the page to fetch, results are ordered by id unless
+     *                 sorted otherwise
+     * @return slice of entities matching the key-value pair
+     */
+    Slice<T> jsonSearchByKeyAndValue(String key, Object value, Pageable pageable);
+
+    /**
+     * Streams the entities where the specified key has the specified value in
+     * any JSON field.
+     * <p>
+     * See {@link #jsonStreamByValue(String)} for the stream's lifecycle.
+     *
+     * @param key   the JSON key to search for
+     * @param value the value the key should have
+     * @return stream of entities matching the key-value pair
+     */
+    Stream<T> jsonStreamByKeyAndValue(String key, Object value);
+
     /**
      * Finds the first entity where the specified key has the specified value.
      *
@@ -1,27 +1,52 @@
 package fr.cytech.projetdevwebbackend.jpa.repository;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import fr.cytech.projetdevwebbackend.jpa.annotation.JsonColumn;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
 
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.SelectionQuery;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
 import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.ReflectionUtils;
 
+import java.io.IOException;
 import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Implementation of JsonRepositoryFragment providing JSON query capabilities.
  * <p>
  * This implementation extends SimpleJpaRepository to provide both standard JPA
- * repository functionality and additional JSON query methods. It uses Jackson
- * for JSON parsing and querying.
+ * repository functionality and additional JSON query methods. When the
+ * database supports it, searches are translated to native SQL by
+ * JsonQueryGenerator so that only matching rows are loaded. Otherwise, entities
+ * are scrolled through and their JSON is parsed and queried with Jackson, in
+ * the storage format declared by each {@link JsonColumn}.
+ * <p>
+ * Existence checks, counts and first-match lookups never build the full list
+ * of results: they stop at the first match or count in the database.
  *
  * @param <T>  the domain type the repository manages
  * @param <ID> the type of the id of the entity the repository manages
@@ -34,10 +59,14 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
         extends SimpleJpaRepository<T, ID>
         implements JsonRepositoryFragment<T, ID> {
 
+    /** Number of rows fetched at once by streaming queries */
+    private static final int STREAM_FETCH_SIZE = 100;
+
     private final EntityManager entityManager;
     private final Class<T> domainClass;
     private final Map<String, Field> jsonFields;
-    private final ObjectMapper objectMapper;
+    private final String idAttribute;
+    private final Optional<JsonQueryGenerator> queryGenerator;
 
     /**
      * Creates a new JsonRepositoryImpl instance.
@@ -50,7 +79,99 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
         this.entityManager = entityManager;
         this.domainClass = entityInformation.getJavaType();
         this.jsonFields = findJsonFields();
-        this.objectMapper = new ObjectMapper();
+        this.idAttribute = entityInformation.getIdAttribute().getName();
+        this.queryGenerator = JsonQueryGenerator.forEntity(entityManager, domainClass, jsonFields.values());
+    }
+
+    /**
+     * Runs a native JSON query and returns the matching entities.
+     *
+     * @param generator the query generator for this entity
+     * @param predicate the JSON predicate to apply
+     * @return the matching entities
+     */
+    @SuppressWarnings("unchecked")
+    private List<T> findAllMatching(JsonQueryGenerator generator, JsonQueryGenerator.JsonPredicate predicate) {
+        Query query = entityManager.createNativeQuery(generator.select(predicate), domainClass);
+        predicate.bind(query);
+        return query.getResultList();
+    }
+
+    /**
+     * Runs a native JSON query and returns a single slice of the matching
+     * entities.
+     *
+     * @param generator the query generator for this entity
+     * @param predicate the JSON predicate to apply
+     * @param pageable  the slice to fetch
+     * @return the matching entities
+     */
+    @SuppressWarnings("unchecked")
+    private Slice<T> findSliceMatching(JsonQueryGenerator generator, JsonQueryGenerator.JsonPredicate predicate,
+            Pageable pageable) {
+        Query query = entityManager.createNativeQuery(generator.select(predicate, pageable.getSort()), domainClass);
+        predicate.bind(query);
+        if (pageable.isUnpaged()) {
+            return new SliceImpl<>(query.getResultList());
+        }
+
+        // Fetch one more entity to know whether there is a next slice
+        query.setFirstResult((int) pageable.getOffset());
+        query.setMaxResults(pageable.getPageSize() + 1);
+        return toSlice(query.getResultList(), pageable);
+    }
+
+    /**
+     * Runs a native JSON query and streams the matching entities.
+     *
+     * @param generator the query generator for this entity
+     * @param predicate the JSON predicate to apply
+     * @return the matching entities, see {@link #scroll(SelectionQuery)}
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<T> streamMatching(JsonQueryGenerator generator, JsonQueryGenerator.JsonPredicate predicate) {
+        NativeQuery<T> query = entityManager.createNativeQuery(generator.select(predicate, Sort.unsorted()), domainClass)
+                .unwrap(NativeQuery.class);
+        predicate.bind(query);
+        return scroll(query);
+    }
+
+    /**
+     * Streams the results of a query through a forward-only database cursor.
+     * <p>
+     * Each entity is detached from the persistence context once the stream is
+     * done with it, so that the persistence context does not grow with the
+     * number of results. Closing the stream closes the cursor.
+     *
+     * @param query the query to run
+     * @return the results of the query
+     */
+    private Stream<T> scroll(SelectionQuery<T> query) {
+        ScrollableResults<T> results = query.setFetchSize(STREAM_FETCH_SIZE).scroll(ScrollMode.FORWARD_ONLY);
+        Spliterator<T> spliterator = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super T> action) {
+                if (!results.next()) {
+                    return false;
+                }
+                T entity = results.get();
+                action.accept(entity);
+                entityManager.detach(entity);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(results::close);
+    }
+
+    /**
+     * Trims the results of a query fetching one more entity than the page size
+     * into a slice.
+     */
+    private Slice<T> toSlice(List<T> results, Pageable pageable) {
+        boolean hasNext = results.size() > pageable.getPageSize();
+        List<T> content = hasNext ? results.subList(0, pageable.getPageSize()) : results;
+        return new SliceImpl<>(content, pageable, hasNext);
     }
 
     /**
@@ -75,29 +196,72 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
             return Collections.emptyList();
         }
 
-        // Fetch all entities
-        List<T> allEntities = findAll();
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findAllMatching(generator, generator.byValue(searchText));
+        }
+
         String searchTextLower = searchText.toLowerCase();
+        return findAllMatching(node -> containsValueInJsonNode(node, searchTextLower));
+    }
 
-        // Filter entities that contain the search text in any JSON field
-        return allEntities.stream().filter(entity -> {
-            for (Field field : jsonFields.values()) {
-                try {
-                    String jsonValue = (String) field.get(entity);
-                    if (jsonValue != null && !jsonValue.isEmpty()) {
-                        // Simple string match first (faster)
-                        if (jsonValue.toLowerCase().contains(searchTextLower)) {
-                            // Try with Jackson for more precise check
-                            JsonNode rootNode = objectMapper.readTree(jsonValue);
-                            return containsValueInJsonNode(rootNode, searchTextLower);
-                        }
-                    }
-                } catch (Exception e) {
-                    // Skip this field if there's an error
-                }
+    @Override
+    public Slice<T> jsonSearchByValue(String searchText, Pageable pageable) {
+        if (jsonFields.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findSliceMatching(generator, generator.byValue(searchText), pageable);
+        }
+
+        String searchTextLower = searchText.toLowerCase();
+        return findSliceMatching(node -> containsValueInJsonNode(node, searchTextLower), pageable);
+    }
+
+    @Override
+    public Slice<T> jsonSearchByValueOrProperty(String property, String searchText, ID afterId,
+            Pageable pageable) {
+        Pageable byId = pageable.isPaged() ? PageRequest.of(pageable.getPageNumber(), pageable.getPageSize())
+                : pageable;
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            JsonQueryGenerator.JsonPredicate predicate = generator.byValueOrProperty(property, searchText);
+            if (afterId != null) {
+                predicate = generator.afterId(predicate, afterId);
             }
-            return false;
-        }).collect(Collectors.toList());
+            return findSliceMatching(generator, predicate, byId);
+        }
+
+        Field propertyField = ReflectionUtils.findField(domainClass, property);
+        if (propertyField == null) {
+            throw new IllegalArgumentException("No property " + property + " in " + domainClass.getSimpleName());
+        }
+        ReflectionUtils.makeAccessible(propertyField);
+
+        String searchTextLower = searchText.toLowerCase();
+        return findSliceMatching(entity -> {
+            Object value = ReflectionUtils.getField(propertyField, entity);
+            return value != null && value.toString().toLowerCase().contains(searchTextLower)
+                    || matchesEntity(entity, node -> containsValueInJsonNode(node, searchTextLower));
+        }, afterId, byId);
+    }
+
+    @Override
+    public Stream<T> jsonStreamByValue(String searchText) {
+        if (jsonFields.isEmpty()) {
+            return Stream.empty();
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return streamMatching(generator, generator.byValue(searchText));
+        }
+
+        String searchTextLower = searchText.toLowerCase();
+        return streamMatching(node -> containsValueInJsonNode(node, searchTextLower));
     }
 
     /**
@@ -136,24 +300,40 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
             return Collections.emptyList();
         }
 
-        // Fetch all entities
-        List<T> allEntities = findAll();
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findAllMatching(generator, generator.byKey(key));
+        }
 
-        // Filter entities that contain the key in any JSON field
-        return allEntities.stream().filter(entity -> {
-            for (Field field : jsonFields.values()) {
-                try {
-                    String jsonValue = (String) field.get(entity);
-                    if (jsonValue != null && !jsonValue.isEmpty()) {
-                        JsonNode rootNode = objectMapper.readTree(jsonValue);
-                        return hasJsonKey(rootNode, key);
-                    }
-                } catch (Exception e) {
-                    // Skip this field if there's an error
-                }
-            }
-            return false;
-        }).collect(Collectors.toList());
+        return findAllMatching(node -> hasJsonKey(node, key));
+    }
+
+    @Override
+    public Slice<T> jsonSearchByKey(String key, Pageable pageable) {
+        if (jsonFields.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findSliceMatching(generator, generator.byKey(key), pageable);
+        }
+
+        return findSliceMatching(node -> hasJsonKey(node, key), pageable);
+    }
+
+    @Override
+    public Stream<T> jsonStreamByKey(String key) {
+        if (jsonFields.isEmpty()) {
+            return Stream.empty();
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return streamMatching(generator, generator.byKey(key));
+        }
+
+        return streamMatching(node -> hasJsonKey(node, key));
     }
 
     /**
@@ -193,25 +373,53 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
             return Collections.emptyList();
         }
 
-        // Fetch all entities
-        List<T> allEntities = findAll();
-        String stringValue = value != null ? value.toString() : null;
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findAllMatching(generator, generator.byKeyAndValue(key, value));
+        }
 
-        // Filter entities where any JSON field has the key with the specified value
-        return allEntities.stream().filter(entity -> {
-            for (Field field : jsonFields.values()) {
-                try {
-                    String jsonValue = (String) field.get(entity);
-                    if (jsonValue != null && !jsonValue.isEmpty()) {
-                        JsonNode rootNode = objectMapper.readTree(jsonValue);
-                        return hasKeyWithValue(rootNode, key, value, stringValue);
-                    }
-                } catch (Exception e) {
-                    // Skip this field if there's an error
-                }
-            }
-            return false;
-        }).collect(Collectors.toList());
+        return findAllMatching(keyAndValueMatcher(key, value));
+    }
+
+    @Override
+    public Slice<T> jsonSearchByKeyAndValue(String key, Object value, Pageable pageable) {
+        if (jsonFields.isEmpty()) {
+            return new SliceImpl<>(Collections.emptyList(), pageable, false);
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return findSliceMatching(generator, generator.byKeyAndValue(key, value), pageable);
+        }
+
+        return findSliceMatching(keyAndValueMatcher(key, value), pageable);
+    }
+
+    @Override
+    public Stream<T> jsonStreamByKeyAndValue(String key, Object value) {
+        if (jsonFields.isEmpty()) {
+            return Stream.empty();
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            return streamMatching(generator, generator.byKeyAndValue(key, value));
+        }
+
+        return streamMatching(keyAndValueMatcher(key, value));
+    }
+
+    /**
+     * Builds a matcher for JSON documents having the specified key with the
+     * specified value.
+     *
+     * @param key   the key to search for
+     * @param value the value the key should have
+     * @return the matcher
+     */
+    private Predicate<JsonNode> keyAndValueMatcher(String key, Object value) {
+        String stringValue = value != null ? value.toString() : null;
+        return node -> hasKeyWithValue(node, key, value, stringValue);
     }
 
     /**
@@ -286,19 +494,204 @@ public class JsonRepositoryImpl<T, ID extends Serializable>
 
     @Override
     public Optional<T> jsonSearchFirstByKeyAndValue(String key, Object value) {
-        List<T> results = jsonSearchByKeyAndValue(key, value);
-        return results.isEmpty() ? Optional.empty() : Optional.of(results.get(0));
+        if (jsonFields.isEmpty()) {
+            return Optional.empty();
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            JsonQueryGenerator.JsonPredicate predicate = generator.byKeyAndValue(key, value);
+            Query query = entityManager.createNativeQuery(generator.select(predicate), domainClass)
+                    .setMaxResults(1);
+            predicate.bind(query);
+            List<?> results = query.getResultList();
+            return results.stream().findFirst().map(domainClass::cast);
+        }
+
+        try (Stream<Object> ids = streamMatchingIds(keyAndValueMatcher(key, value))) {
+            return ids.findFirst().flatMap(id -> Optional.ofNullable(entityManager.find(domainClass, id)));
+        }
     }
 
     @Override
     public boolean existsByKeyAndValue(String key, Object value) {
-        List<T> results = jsonSearchByKeyAndValue(key, value);
-        return !results.isEmpty();
+        if (jsonFields.isEmpty()) {
+            return false;
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            JsonQueryGenerator.JsonPredicate predicate = generator.byKeyAndValue(key, value);
+            Query query = entityManager.createNativeQuery(generator.exists(predicate));
+            predicate.bind(query);
+            return !query.getResultList().isEmpty();
+        }
+
+        try (Stream<Object> ids = streamMatchingIds(keyAndValueMatcher(key, value))) {
+            return ids.findAny().isPresent();
+        }
     }
 
     @Override
     public long countByKey(String key) {
-        List<T> results = jsonSearchByKey(key);
-        return results.size();
+        if (jsonFields.isEmpty()) {
+            return 0;
+        }
+
+        if (queryGenerator.isPresent()) {
+            JsonQueryGenerator generator = queryGenerator.get();
+            JsonQueryGenerator.JsonPredicate predicate = generator.byKey(key);
+            Query query = entityManager.createNativeQuery(generator.count(predicate));
+            predicate.bind(query);
+            return ((Number) query.getSingleResult()).longValue();
+        }
+
+        try (Stream<Object> ids = streamMatchingIds(node -> hasJsonKey(node, key))) {
+            return ids.count();
+        }
+    }
+
+    /**
+     * Loads every entity whose JSON fields match, parsing the JSON in memory.
+     * <p>
+     * Entities are scrolled through rather than loaded all at once.
+     *
+     * @param matcher the condition on a JSON document
+     * @return the matching entities
+     */
+    private List<T> findAllMatching(Predicate<JsonNode> matcher) {
+        CriteriaQuery<T> query = entityManager.getCriteriaBuilder().createQuery(domainClass);
+        query.select(query.from(domainClass));
+
+        try (Stream<T> entities = entityManager.createQuery(query).getResultStream()) {
+            return entities.filter(entity -> matchesEntity(entity, matcher))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Finds a single slice of the entities whose JSON fields match, parsing the
+     * JSON in memory.
+     *
+     * @param matcher  the condition on a JSON document
+     * @param pageable the slice to fetch
+     * @return the matching entities
+     */
+    private Slice<T> findSliceMatching(Predicate<JsonNode> matcher, Pageable pageable) {
+        return findSliceMatching(entity -> matchesEntity(entity, matcher), null, pageable);
+    }
+
+    /**
+     * Finds a single slice of the entities matching a condition checked in
+     * memory.
+     *
+     * @param filter   the condition on an entity
+     * @param afterId  the id the entities must be greater than, or null
+     * @param pageable the slice to fetch
+     * @return the matching entities
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Slice<T> findSliceMatching(Predicate<T> filter, Object afterId, Pageable pageable) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.select(root).orderBy(QueryUtils.toOrders(pageable.getSort().and(Sort.by(idAttribute)), root, builder));
+        if (afterId != null) {
+            query.where(builder.greaterThan(root.<Comparable>get(idAttribute), (Comparable) afterId));
+        }
+
+        try (Stream<T> entities = entityManager.createQuery(query).getResultStream()) {
+            Stream<T> matching = entities.filter(filter);
+            if (pageable.isUnpaged()) {
+                return new SliceImpl<>(matching.collect(Collectors.toList()));
+            }
+            return toSlice(matching.skip(pageable.getOffset())
+                    .limit(pageable.getPageSize() + 1)
+                    .collect(Collectors.toList()), pageable);
+        }
+    }
+
+    /**
+     * Streams the entities whose JSON fields match, parsing the JSON in memory.
+     *
+     * @param matcher the condition on a JSON document
+     * @return the matching entities, see {@link #scroll(SelectionQuery)}
+     */
+    @SuppressWarnings("unchecked")
+    private Stream<T> streamMatching(Predicate<JsonNode> matcher) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<T> query = builder.createQuery(domainClass);
+        Root<T> root = query.from(domainClass);
+        query.select(root).orderBy(builder.asc(root.get(idAttribute)));
+
+        SelectionQuery<T> selection = entityManager.createQuery(query).unwrap(SelectionQuery.class);
+        return scroll(selection).filter(entity -> matchesEntity(entity, matcher));
+    }
+
+    /**
+     * Streams the ids of the entities whose JSON fields match, parsing the JSON
+     * in memory.
+     * <p>
+     * Only the id and the JSON columns are read, through a database cursor, so
+     * no entity is hydrated and memory use does not grow with the table. The
+     * stream must be closed.
+     *
+     * @param matcher the condition on a JSON document
+     * @return the ids of the matching entities
+     */
+    private Stream<Object> streamMatchingIds(Predicate<JsonNode> matcher) {
+        CriteriaQuery<Object[]> query = entityManager.getCriteriaBuilder().createQuery(Object[].class);
+        Root<T> root = query.from(domainClass);
+        List<Selection<?>> selections = new ArrayList<>();
+        List<Field> fields = new ArrayList<>(jsonFields.values());
+        selections.add(root.get(idAttribute));
+        fields.forEach(field -> selections.add(root.get(field.getName())));
+        query.multiselect(selections);
+
+        return entityManager.createQuery(query).getResultStream()
+                .filter(row -> {
+                    for (int i = 1; i < row.length; i++) {
+                        if (matchesJson(row[i], fields.get(i - 1), matcher)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                })
+                .map(row -> row[0]);
+    }
+
+    /**
+     * Checks whether any JSON field of an entity matches.
+     *
+     * @param entity  the entity to check
+     * @param matcher the condition on a JSON document
+     * @return true if any JSON field matches the condition
+     */
+    private boolean matchesEntity(T entity, Predicate<JsonNode> matcher) {
+        for (Field field : jsonFields.values()) {
+            if (matchesJson(ReflectionUtils.getField(field, entity), field, matcher)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a JSON field value in the field's storage format and checks it
+     * against a matcher.
+     *
+     * @param jsonValue the raw value of the field
+     * @param field     the JSON field the value was read from
+     * @param matcher   the condition on the JSON document
+     * @return true if the value is a JSON document matching the condition
+     */
+    private boolean matchesJson(Object jsonValue, Field field, Predicate<JsonNode> matcher) {
+        try {
+            JsonNode rootNode = field.getAnnotation(JsonColumn.class).format().readTree(jsonValue);
+            return rootNode != null && matcher.test(rootNode);
+        } catch (IOException e) {
+            // Skip this field if it isn't a valid document
+            return false;
+        }
     }
 }
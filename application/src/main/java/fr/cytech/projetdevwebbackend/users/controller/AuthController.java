@@ -4,6 +4,7 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -15,8 +16,8 @@ import fr.cytech.projetdevwebbackend.users.dto.RegisterDto;
 import fr.cytech.projetdevwebbackend.users.model.User;
 import fr.cytech.projetdevwebbackend.users.service.AuthServiceImpl;
 import fr.cytech.projetdevwebbackend.errors.types.AuthError;
-import fr.cytech.projetdevwebbackend.users.jwt.JwtAuthResponse;
-import fr.cytech.projetdevwebbackend.util.Either;
+import fr.cytech.projetdevwebbackend.errors.types.TokenError;
+import fr.cytech.projetdevwebbackend.users.jwt.CurrentUser;
 import jakarta.validation.Valid;
 
 /**
@@ -46,59 +47,61 @@ public class AuthController {
     }
 
     /**
-     * Returns the user, using the JWT token from the request header.
+     * Returns the user the request's JWT token was issued to.
      */
     @PostMapping("/me")
-    public ResponseEntity<?> me(@RequestHeader("Authorization") String token) {
-        log.debug("Fetching user information for token: {}", token);
+    public ResponseEntity<?> me(@CurrentUser(required = false) User user) {
+        if (user == null) {
+            log.warn("Failed to fetch user information: {}", TokenError.INVALID_TOKEN);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(TokenError.INVALID_TOKEN.getMessage());
+        }
 
-        Either<fr.cytech.projetdevwebbackend.errors.types.Error, User> userResult = authService.getUserFromToken(token);
-        return userResult.fold(
-                err -> {
-                    log.warn("Failed to fetch user information: {}", err);
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(err.getMessage());
-                },
-                user -> {
-                    log.info("User information retrieved successfully: {}", user.getUsername());
-                    return ResponseEntity.ok(user);
-                });
+        log.info("User information retrieved successfully: {}", user.getUsername());
+        return ResponseEntity.ok(user);
     }
 
     /**
      * Authenticates a user and returns a JWT token.
+     * <p>
+     * The password is verified asynchronously, the request thread is released
+     * meanwhile. Responds with 503 when too many logins are already waiting.
      *
      * @param loginDto Login credentials (username/email and password)
      * @return JWT token wrapped in a response object or an error response
      */
     @PostMapping("/login")
-
-    public ResponseEntity<?> login(@RequestBody @Valid LoginDto loginDto) {
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody @Valid LoginDto loginDto) {
         log.debug("Login attempt for user: {}", loginDto.getUsernameOrEmail());
 
-        Either<AuthError, JwtAuthResponse> loginResult = authService.login(loginDto);
-        return loginResult.fold(
+        return authService.loginAsync(loginDto).thenApply(loginResult -> loginResult.fold(
                 err -> {
                     log.warn("Login failed for user {}: {}", loginDto.getUsernameOrEmail(), err);
 
                     Map<String, Object> errorResponse = new HashMap<>();
                     errorResponse.put("message", err.getMessage());
 
-                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(errorResponse);
+                    return ResponseEntity.status(err == AuthError.SERVER_BUSY
+                            ? HttpStatus.SERVICE_UNAVAILABLE
+                            : HttpStatus.UNAUTHORIZED).body(errorResponse);
                 },
                 response -> {
                     log.info("User logged in successfully: {}", loginDto.getUsernameOrEmail());
                     return ResponseEntity.ok(response);
-                });
+                }));
     }
 
     /**
      * Registers a new user account.
+     * <p>
+     * The password is hashed asynchronously, the request thread is released
+     * meanwhile. Responds with 503 when too many passwords are already
+     * waiting to be hashed.
      *
      * @param registerDto Registration information
      * @return Success confirmation or error details
      */
     @PostMapping("/register")
-    public ResponseEntity<?> register(@RequestBody @Valid RegisterDto registerDto) {
+    public CompletableFuture<ResponseEntity<?>> register(@RequestBody @Valid RegisterDto registerDto) {
         log.debug("Registration attempt for username: {}", registerDto.getUsername());
 
         // Check if passwords match
@@ -108,36 +111,36 @@ public class AuthController {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", "Passwords do not match");
 
-            return ResponseEntity.badRequest().body(errorResponse);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(errorResponse));
         }
 
-        Either<AuthError, User> result = authService.register(
+        return authService.registerAsync(
                 registerDto.getUsername(),
                 registerDto.getPassword(),
                 registerDto.getEmail(),
                 registerDto.getName(),
                 registerDto.getGender(),
                 registerDto.getBirthdate(),
-                true);
-
-        return result.fold(
-                // Handle error case
-                error -> {
-                    log.warn("Registration failed for username {}: {}", registerDto.getUsername(), error);
-
-                    Map<String, Object> errorResponse = new HashMap<>();
-                    errorResponse.put("message", error.getMessage());
-
-                    return ResponseEntity.badRequest().body(errorResponse);
-                },
+                true).thenApply(result -> result.fold(
+                        // Handle error case
+                        error -> {
+                            log.warn("Registration failed for username {}: {}", registerDto.getUsername(), error);
+
+                            Map<String, Object> errorResponse = new HashMap<>();
+                            errorResponse.put("message", error.getMessage());
+
+                            return ResponseEntity.status(error == AuthError.SERVER_BUSY
+                                    ? HttpStatus.SERVICE_UNAVAILABLE
+                                    : HttpStatus.BAD_REQUEST).body(errorResponse);
+                        },
                 // Handle success case
-                user -> {
-                    log.info("User registered successfully: {}", user.getUsername());
+                        user -> {
+                            log.info("User registered successfully: {}", user.getUsername());
 
-                    Map<String, Object> response = new HashMap<>();
-                    response.put("message", "User registered successfully");
+                            Map<String, Object> response = new HashMap<>();
+                            response.put("message", "User registered successfully");
 
-                    return ResponseEntity.ok(response);
-                });
+                            return ResponseEntity.ok(response);
+                        }));
     }
 }
@@ -4,21 +4,30 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
-import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
+import fr.cytech.projetdevwebbackend.errors.types.AuthError;
 import fr.cytech.projetdevwebbackend.errors.types.Error;
+import fr.cytech.projetdevwebbackend.errors.types.FileError;
 import fr.cytech.projetdevwebbackend.errors.types.UserAdministrationError;
 import fr.cytech.projetdevwebbackend.users.dto.UserIdDto;
 import fr.cytech.projetdevwebbackend.users.dto.UserReportDto;
@@ -26,7 +35,7 @@ import fr.cytech.projetdevwebbackend.users.dto.UserUpdateDto;
 import fr.cytech.projetdevwebbackend.users.dto.UsernameDto;
 import fr.cytech.projetdevwebbackend.users.dto.UsernameIntegerDto;
 import fr.cytech.projetdevwebbackend.users.dto.UsernameRoleDto;
-import fr.cytech.projetdevwebbackend.users.jwt.JwtTokenProvider;
+import fr.cytech.projetdevwebbackend.users.jwt.CurrentUser;
 import fr.cytech.projetdevwebbackend.users.model.Report;
 import fr.cytech.projetdevwebbackend.users.model.User;
 import fr.cytech.projetdevwebbackend.users.model.projections.ReportProjection;
@@ -34,6 +43,7 @@ import fr.cytech.projetdevwebbackend.users.model.repository.ReportRepository;
 import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import fr.cytech.projetdevwebbackend.users.service.UserAdministrationService;
 import fr.cytech.projetdevwebbackend.util.Either;
+import fr.cytech.projetdevwebbackend.util.services.ProfilePicture;
 import fr.cytech.projetdevwebbackend.util.services.ProfilePictureFileAccessService;
 import jakarta.validation.Valid;
 import jakarta.validation.groups.Default;
@@ -57,20 +67,21 @@ public class UserAdministrationController {
 
     private final UserAdministrationService userAdministrationService;
     private final UserRepository userRepository;
-    private final JwtTokenProvider jwtTokenProvider;
     private final ProfilePictureFileAccessService fileAccessService;
     private final ReportRepository reportRepository;
 
     @Value("${app.admin-username}")
     private String adminUsername;
 
+    @Value("${app.avatar.cache-max-age-seconds:60}")
+    private long avatarMaxAge;
+
     @Autowired
     public UserAdministrationController(UserAdministrationService userAdministrationService,
-            UserRepository userRepository, JwtTokenProvider jwtTokenProvider,
+            UserRepository userRepository,
             ProfilePictureFileAccessService fileAccessService, ReportRepository reportRepository) {
         this.userAdministrationService = userAdministrationService;
         this.userRepository = userRepository;
-        this.jwtTokenProvider = jwtTokenProvider;
         this.fileAccessService = fileAccessService;
         this.reportRepository = reportRepository;
     }
@@ -321,11 +332,11 @@ public class UserAdministrationController {
      * Gets a provided user's profile picture
      */
     @PostMapping("/get-profile-picture")
-    public ResponseEntity<?> getProfilePicture(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> getProfilePicture(@CurrentUser(required = false) String currentUsername,
             @RequestBody @Valid UsernameDto usernameDto) {
 
         // Check if the user is logged in
-        if (!jwtTokenProvider.validateToken(token)) {
+        if (currentUsername == null) {
             return ResponseEntity.ok(fileAccessService.getDefaultImage());
         }
         return userAdministrationService.getUserProfilePicture(usernameDto.getUsername())
@@ -345,34 +356,70 @@ public class UserAdministrationController {
                         });
     }
 
+    /**
+     * Gets a provided user's profile picture, streamed from disk.
+     * <p>
+     * Responses carry a strong ETag derived from the picture's content, so
+     * that clients revalidate with If-None-Match and get a 304 while it hasn't
+     * changed. Range requests are supported. As with /get-profile-picture,
+     * anonymous users get the default picture.
+     * <p>
+     * Given a size, the smallest square variant at least that large is served
+     * instead of the whole picture.
+     */
+    @GetMapping("/{username}/avatar")
+    public ResponseEntity<?> getAvatar(@CurrentUser(required = false) String currentUsername,
+            @PathVariable String username, @RequestParam(required = false) Integer size) {
+
+        if (currentUsername == null) {
+            return avatarResponse(fileAccessService.getDefaultPicture(size));
+        }
+        return userAdministrationService.findUserProfilePicture(username, size)
+                .fold(
+                        err -> {
+                            log.warn("Failed to get avatar for user {}: {}", username, err.getMessage());
+
+                            Map<String, Object> errorResponse = new HashMap<>();
+                            errorResponse.put("message", err.getMessage());
+
+                            return ResponseEntity.badRequest().body(errorResponse);
+                        },
+                        this::avatarResponse);
+    }
+
+    /**
+     * Builds a cacheable response for a picture. Spring answers conditional
+     * and Range requests from the ETag and the resource.
+     */
+    private ResponseEntity<Resource> avatarResponse(ProfilePicture picture) {
+        return ResponseEntity.ok()
+                .eTag(picture.etag())
+                // Anonymous users get the default picture, so responses
+                // depend on the token and can't be shared
+                .cacheControl(CacheControl.maxAge(avatarMaxAge, TimeUnit.SECONDS).cachePrivate())
+                .varyBy(HttpHeaders.AUTHORIZATION)
+                .contentType(picture.mediaType())
+                .body(picture.resource());
+    }
+
     /**
      * Uploads a profile picture for the current user
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping(value = "/upload-profile-picture", consumes = "multipart/form-data")
-    public ResponseEntity<?> uploadProfilePicture(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> uploadProfilePicture(@CurrentUser String username,
             @RequestParam("image") MultipartFile image) {
 
-        String username = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> {
-                    return user;
-                });
-        if (username == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
-
         return userAdministrationService.setUserProfilePicture(username, image).map(
                 err -> {
                     log.warn("Failed to upload profile picture for user {}: {}", username, err.getMessage());
                     Map<String, Object> errorResponse = new HashMap<>();
                     errorResponse.put("message", err.getMessage());
-                    return ResponseEntity.badRequest().body(errorResponse);
+                    return ResponseEntity.status(err == FileError.TOO_MANY_UPLOADS
+                            ? HttpStatus.TOO_MANY_REQUESTS
+                            : err == FileError.FILE_TOO_LARGE
+                                    ? HttpStatus.PAYLOAD_TOO_LARGE
+                                    : HttpStatus.BAD_REQUEST).body(errorResponse);
                 }).orElseGet(
                         () -> {
                             log.info("Successfully uploaded profile picture for user {}", username);
@@ -387,34 +434,21 @@ public class UserAdministrationController {
      * <p>
      * Requires USER role.
      *
-     * @param token     The authentication token
+     * @param reporter  The authenticated user
      * @param reportDto DTO containing the reported username and reason
      * @return ResponseEntity with success or error status
      */
     @PreAuthorize("hasRole('USER')")
     @PostMapping("/create-report")
-    public ResponseEntity<?> createReport(@RequestHeader("Authorization") String token,
+    public ResponseEntity<?> createReport(@CurrentUser User reporter,
             @RequestBody @Valid UserReportDto reportDto) {
 
-        // Extract the reporter's username from the token
-        String reporterUsername = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                user -> user);
-
-        if (reporterUsername == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
+        String reporterUsername = reporter.getUsername();
 
-        // Validate that users exist
-        Optional<User> reporter = userRepository.findByUsername(reporterUsername);
+        // Validate that the reported user exists
         Optional<User> reported = userRepository.findByUsername(reportDto.getReportedUsername());
 
-        if (reporter.isEmpty() || reported.isEmpty()) {
+        if (reported.isEmpty()) {
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", "User not found");
             return ResponseEntity.badRequest().body(errorResponse);
@@ -428,7 +462,7 @@ public class UserAdministrationController {
         }
 
         // Create and save the report
-        Report report = new Report(reporter.get(), reported.get(), reportDto.getReason());
+        Report report = new Report(reporter, reported.get(), reportDto.getReason());
 
         try {
             reportRepository.save(report);
@@ -525,42 +559,30 @@ public class UserAdministrationController {
      * <p>
      * Regular users can only update their own profiles, while admins can update any
      * user.
+     * <p>
+     * A new password is hashed asynchronously, the request thread is released
+     * meanwhile. Responds with 503 when too many passwords are already
+     * waiting to be hashed.
      * 
-     * @param token JWT authentication token
-     * @param dto   DTO containing updated user information
+     * @param currentUser The authenticated user
+     * @param dto         DTO containing updated user information
      * @return ResponseEntity with success or error message
      */
     @PostMapping("/update")
     @PreAuthorize("hasRole('USER')")
-    public ResponseEntity<?> updateUser(@RequestHeader("Authorization") String token,
+    public CompletableFuture<ResponseEntity<?>> updateUser(@CurrentUser User currentUser,
             @RequestBody @Validated({ Default.class, UserUpdateDto.OnUpdate.class }) UserUpdateDto dto) {
 
-        // Extract username from token
-        String currentUsername = jwtTokenProvider.extractUsername(token).fold(
-                err -> {
-                    log.warn("Failed to extract username from token: {}", err.getMessage());
-                    return null;
-                },
-                username -> username);
-
-        if (currentUsername == null) {
-            Map<String, Object> errorResponse = new HashMap<>();
-            errorResponse.put("message", "Invalid authentication token");
-            return ResponseEntity.status(401).body(errorResponse);
-        }
+        String currentUsername = currentUser.getUsername();
 
         // Determine which username to update
         String usernameToUpdate;
         if (dto.getUsername() != null && !dto.getUsername().equals(currentUsername)) {
             // Admin trying to update another user
-            boolean isAdmin = userRepository.findByUsername(currentUsername)
-                    .map(user -> user.hasRole("ADMIN"))
-                    .orElse(false);
-
-            if (!isAdmin) {
+            if (!currentUser.hasRole("ADMIN")) {
                 Map<String, Object> errorResponse = new HashMap<>();
                 errorResponse.put("message", "You can only update your own profile");
-                return ResponseEntity.status(403).body(errorResponse);
+                return CompletableFuture.completedFuture(ResponseEntity.status(403).body(errorResponse));
             }
 
             usernameToUpdate = dto.getUsername();
@@ -570,20 +592,20 @@ public class UserAdministrationController {
         }
 
         // Call service to update user
-        Optional<Error> result = userAdministrationService.updateUser(usernameToUpdate, dto);
-
-        return result.map(
+        return userAdministrationService.updateUser(usernameToUpdate, dto).thenApply(result -> result.map(
                 err -> {
                     log.warn("Failed to update user {}: {}", usernameToUpdate, err.getMessage());
                     Map<String, Object> errorResponse = new HashMap<>();
                     errorResponse.put("message", err.getMessage());
-                    return ResponseEntity.badRequest().body(errorResponse);
+                    return ResponseEntity.status(err == AuthError.SERVER_BUSY
+                            ? HttpStatus.SERVICE_UNAVAILABLE
+                            : HttpStatus.BAD_REQUEST).body(errorResponse);
                 })
                 .orElseGet(() -> {
                     log.info("User {} updated successfully", usernameToUpdate);
                     Map<String, Object> response = new HashMap<>();
                     response.put("message", "User updated successfully");
                     return ResponseEntity.ok(response);
-                });
+                }));
     }
 }
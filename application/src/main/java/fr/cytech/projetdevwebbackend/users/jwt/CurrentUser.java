@@ -0,0 +1,34 @@
+package fr.cytech.projetdevwebbackend.users.jwt;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Binds a controller parameter to the user authenticated for the request.
+ * <p>
+ * The parameter can either be a {@link fr.cytech.projetdevwebbackend.users.model.User},
+ * loaded at most once per request, or a String holding the username only,
+ * which doesn't need any database access. The user is read from the token
+ * already parsed by {@link JwtAuthenticationFilter}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+public @interface CurrentUser {
+
+    /**
+     * Whether an authenticated user is required.
+     * <p>
+     * If it is and the request isn't authenticated, the request is rejected as
+     * unauthorized. Otherwise, the parameter is set to null.
+     *
+     * @return true if the user is required
+     */
+    boolean required() default true;
+}
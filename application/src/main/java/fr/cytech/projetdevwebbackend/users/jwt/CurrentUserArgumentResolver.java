@@ -0,0 +1,89 @@
+package fr.cytech.projetdevwebbackend.users.jwt;
+
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import fr.cytech.projetdevwebbackend.users.model.User;
+import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
+
+/**
+ * Resolves controller parameters annotated with {@link CurrentUser}.
+ * <p>
+ * The username is read from the request's authentication, set up by
+ * {@link JwtAuthenticationFilter}, so the token is never parsed again. Users
+ * are loaded once and kept in the request's attributes.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    /** Name of the request attribute caching the loaded user */
+    private static final String USER_ATTRIBUTE = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    private final UserRepository userRepository;
+
+    @Autowired
+    public CurrentUserArgumentResolver(UserRepository userRepository) {
+        this.userRepository = userRepository;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && (parameter.getParameterType() == User.class || parameter.getParameterType() == String.class);
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+            NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Optional<String> username = currentUsername();
+        Optional<?> resolved = parameter.getParameterType() == User.class
+                ? username.flatMap(name -> loadUser(name, webRequest))
+                : username;
+
+        if (resolved.isEmpty() && parameter.getParameterAnnotation(CurrentUser.class).required()) {
+            throw new AuthenticationCredentialsNotFoundException("No authenticated user for this request");
+        }
+        return resolved.orElse(null);
+    }
+
+    /**
+     * Gets the name of the user authenticated for the current request.
+     */
+    private static Optional<String> currentUsername() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(authentication.getName());
+    }
+
+    /**
+     * Loads a user, once per request.
+     */
+    private Optional<User> loadUser(String username, NativeWebRequest webRequest) {
+        if (webRequest.getAttribute(USER_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST) instanceof User user
+                && user.getUsername().equals(username)) {
+            return Optional.of(user);
+        }
+
+        Optional<User> user = userRepository.findByUsername(username);
+        user.ifPresent(found -> webRequest.setAttribute(USER_ATTRIBUTE, found, RequestAttributes.SCOPE_REQUEST));
+        return user;
+    }
+}
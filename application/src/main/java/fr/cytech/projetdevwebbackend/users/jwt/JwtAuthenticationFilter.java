@@ -25,6 +25,8 @@ import java.io.IOException;
  * <p>
  * This filter intercepts incoming requests, extracts and validates JWT tokens,
  * and sets up Spring Security authentication if a valid token is found.
+ * Each token is parsed a single time, the result being kept as the
+ * {@link ParsedToken} credentials of the authentication.
  * It executes before the standard Spring Security filters.
  *
  * @author fleefie
@@ -62,32 +64,10 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Get JWT token from HTTP request
             String token = getTokenFromRequest(request);
 
-            // Validate Token and authenticate user
-            if (StringUtils.hasText(token) && jwtTokenProvider.validateToken(token)) {
-                // Get username from token
-                String username = jwtTokenProvider.extractUsername(token).fold(
-                        err -> {
-                            logger.error("Failed to extract username from token: {}", err.getMessage());
-                            throw new RuntimeException("Invalid token");
-                        },
-                        usernameResult -> {
-                            return usernameResult;
-                        });
-
-                // Load user details using functional approach
-                userDetailsProvider.findUserDetails(username).ifRight(userDetails -> {
-                    // Create authentication token
-                    UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities());
-
-                    // Set details and context
-                    authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-
-                    logger.debug("User '{}' authenticated successfully", username);
-                }).ifLeft(error -> logger.warn("Authentication failed: {}", error.getMessage()));
+            // Parse the token once, and authenticate the user it was issued to
+            if (StringUtils.hasText(token)) {
+                jwtTokenProvider.parseToken(token)
+                        .ifRight(claims -> authenticate(request, new ParsedToken(token, claims)));
             }
         } catch (Exception e) {
             logger.error("Cannot set user authentication: {}", e.getMessage());
@@ -96,6 +76,34 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * Authenticates the user a verified token was issued to.
+     * <p>
+     * The parsed token is kept as the credentials of the authentication, so
+     * that it never has to be parsed again during the request.
+     *
+     * @param request     The HTTP request
+     * @param parsedToken The verified token
+     */
+    private void authenticate(HttpServletRequest request, ParsedToken parsedToken) {
+        String username = parsedToken.username();
+
+        // Load user details using functional approach
+        userDetailsProvider.findUserDetails(username).ifRight(userDetails -> {
+            // Create authentication token
+            UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
+                    userDetails,
+                    parsedToken,
+                    userDetails.getAuthorities());
+
+            // Set details and context
+            authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+
+            logger.debug("User '{}' authenticated successfully", username);
+        }).ifLeft(error -> logger.warn("Authentication failed: {}", error.getMessage()));
+    }
+
     /**
      * Extracts the JWT token from the request's Authorization header.
      *
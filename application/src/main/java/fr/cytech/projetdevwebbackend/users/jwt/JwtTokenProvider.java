@@ -3,6 +3,7 @@ package fr.cytech.projetdevwebbackend.users.jwt;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 import javax.crypto.SecretKey;
@@ -18,6 +19,7 @@ import fr.cytech.projetdevwebbackend.errors.types.TokenError;
 import fr.cytech.projetdevwebbackend.util.Either;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -39,6 +41,11 @@ public class JwtTokenProvider {
     private final SecretKey secretKey;
     private final long tokenValidityMillis;
 
+    /** Verifying parser, immutable and thus shared by all requests */
+    private final JwtParser jwtParser;
+
+    private final VerifiedTokenCache verifiedTokenCache;
+
     private static final Logger logger = LoggerFactory.getLogger(JwtTokenProvider.class);
 
     /**
@@ -48,12 +55,16 @@ public class JwtTokenProvider {
      * @param jwtSecret           Base64-encoded JWT secret key from application
      *                            properties
      * @param tokenValidityMillis Token validity period in milliseconds
+     * @param verifiedTokenCache  Cache of already verified tokens
      */
     public JwtTokenProvider(
             @Value("${app.jwt-secret}") String jwtSecret,
-            @Value("${app.jwt-expiration-milliseconds}") long tokenValidityMillis) {
+            @Value("${app.jwt-expiration-milliseconds}") long tokenValidityMillis,
+            VerifiedTokenCache verifiedTokenCache) {
         this.secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
         this.tokenValidityMillis = tokenValidityMillis;
+        this.jwtParser = Jwts.parser().verifyWith(secretKey).build();
+        this.verifiedTokenCache = verifiedTokenCache;
     }
 
     /**
@@ -117,6 +128,11 @@ public class JwtTokenProvider {
 
     /**
      * Parses and validates a JWT token.
+     * <p>
+     * Tokens sent with a request are already parsed by
+     * {@link JwtAuthenticationFilter}, their claims are the {@link ParsedToken}
+     * credentials of the request's authentication. Tokens that were already
+     * verified are read from the {@link VerifiedTokenCache}.
      *
      * @param token JWT token string
      * @return Either containing error or claims
@@ -127,11 +143,13 @@ public class JwtTokenProvider {
                 token = token.substring(7);
             }
 
-            Claims claims = Jwts.parser()
-                    .verifyWith(secretKey)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            Optional<Claims> cached = verifiedTokenCache.get(token);
+            if (cached.isPresent()) {
+                return Either.right(cached.get());
+            }
+
+            Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+            verifiedTokenCache.put(token, claims);
             return Either.right(claims);
         } catch (ExpiredJwtException e) {
             logger.warn("JWT token expired: {}", e.getMessage());
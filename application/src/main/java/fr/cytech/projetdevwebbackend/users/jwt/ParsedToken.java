@@ -0,0 +1,27 @@
+package fr.cytech.projetdevwebbackend.users.jwt;
+
+import io.jsonwebtoken.Claims;
+
+/**
+ * A JWT token that was verified and parsed for the current request.
+ * <p>
+ * {@link JwtAuthenticationFilter} parses the token of each request once, then
+ * stores it as the credentials of the request's authentication, so that
+ * nothing further down the chain has to verify the token again.
+ *
+ * @param token  the raw token, without its "Bearer " prefix
+ * @param claims the verified claims of the token
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public record ParsedToken(String token, Claims claims) {
+
+    /**
+     * Gets the username the token was issued to.
+     *
+     * @return the subject of the token
+     */
+    public String username() {
+        return claims.getSubject();
+    }
+}
@@ -0,0 +1,151 @@
+package fr.cytech.projetdevwebbackend.users.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import fr.cytech.projetdevwebbackend.users.service.UserChangedEvent;
+import fr.cytech.projetdevwebbackend.util.ExpiringCache;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Cache of the claims of already verified JWT tokens.
+ * <p>
+ * Clients send the same token with every request until it expires, so the
+ * claims of a verified token are kept until its expiration date, keyed by a
+ * SHA-256 digest of the token rather than the token itself. This skips
+ * decoding, parsing and verifying the signature of tokens that were already
+ * seen.
+ * <p>
+ * The cache is bounded, dropping the least recently used tokens first. Its
+ * hits and misses are published as the {@code cache.gets} metric, tagged
+ * with {@code cache=jwt-claims}. The tokens of deleted users are dropped as
+ * soon as the deletion is committed.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+@Slf4j
+public class VerifiedTokenCache {
+
+    private static final String CACHE_NAME = "jwt-claims";
+
+    private final ExpiringCache<String, Claims> cache;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumSize   Maximum number of cached tokens
+     * @param meterRegistry Registry to publish the cache's metrics to
+     */
+    @Autowired
+    public VerifiedTokenCache(
+            @Value("${app.jwt-cache.maximum-size:10000}") int maximumSize,
+            MeterRegistry meterRegistry) {
+        this.cache = new ExpiringCache<>(maximumSize);
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .description("Tokens whose claims were found in the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .description("Tokens that had to be verified")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", cache, ExpiringCache::size)
+                .tag("cache", CACHE_NAME)
+                .description("Number of cached tokens")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Gets the claims of a token, if it was already verified and hasn't expired.
+     *
+     * @param token the compact token, without its "Bearer " prefix
+     * @return the claims of the token, or empty if it has to be verified
+     */
+    public Optional<Claims> get(String token) {
+        Optional<Claims> claims = cache.get(digest(token));
+        (claims.isPresent() ? hits : misses).increment();
+        return claims;
+    }
+
+    /**
+     * Caches the claims of a verified token until the token expires.
+     * <p>
+     * Tokens without an expiration date are never cached.
+     *
+     * @param token  the compact token, without its "Bearer " prefix
+     * @param claims the verified claims of the token
+     */
+    public void put(String token, Claims claims) {
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            cache.put(digest(token), claims, expiration.getTime());
+        }
+    }
+
+    /**
+     * Drops all the cached tokens issued to a user, so that they have to be
+     * verified again.
+     *
+     * @param username the subject of the tokens
+     */
+    public void revokeSubject(String username) {
+        int removed = cache.removeValuesIf(claims -> username.equals(claims.getSubject()));
+        log.debug("Dropped {} cached tokens of user {}", removed, username);
+    }
+
+    /**
+     * Drops the cached tokens of deleted users, once their deletion is
+     * committed.
+     *
+     * @param event the change made to a user
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.change() == UserChangedEvent.Change.DELETED) {
+            revokeSubject(event.username());
+        }
+    }
+
+    /**
+     * Regularly removes expired tokens, since tokens that are never sent again
+     * would otherwise only leave the cache once it is full.
+     */
+    @Scheduled(fixedDelay = 60000)
+    public void purgeExpired() {
+        int removed = cache.purgeExpired();
+        if (removed > 0) {
+            log.debug("Removed {} expired tokens from the cache", removed);
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
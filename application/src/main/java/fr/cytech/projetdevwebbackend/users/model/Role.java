@@ -1,7 +1,9 @@
 package fr.cytech.projetdevwebbackend.users.model;
 
 import jakarta.persistence.Column;
+import fr.cytech.projetdevwebbackend.users.service.RoleChangeListener;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
@@ -24,6 +26,7 @@ import lombok.ToString;
  */
 @Entity
 @Table(name = "roles")
+@EntityListeners(RoleChangeListener.class)
 @Getter
 @Setter
 @NoArgsConstructor
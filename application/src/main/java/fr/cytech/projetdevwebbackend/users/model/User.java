@@ -1,5 +1,7 @@
 package fr.cytech.projetdevwebbackend.users.model;
 
+import org.hibernate.annotations.DynamicUpdate;
+
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
@@ -21,18 +23,30 @@ import java.util.Set;
  * status.
  * This entity handles core user information for authentication and
  * authorization, as well as user score.
+ * <p>
+ * Updates only write the changed columns, since scores are incremented
+ * directly in the database by the ScoreAccumulator and must not be
+ * overwritten by a stale copy.
+ * <p>
+ * Roles are loaded lazily. Lookups that need them, such as authentication,
+ * use the {@value #WITH_ROLES} entity graph to load them in the same query.
  *
  * @author fleefie
  * @since 2025-03-15
  */
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = User.WITH_ROLES, attributeNodes = @NamedAttributeNode("roles"))
+@DynamicUpdate
 @Getter
 @Setter
 @ToString(exclude = { "password", "roles" })
 @EqualsAndHashCode(of = { "id", "username", "email" })
 public class User {
 
+    /** Entity graph loading the user along with its roles */
+    public static final String WITH_ROLES = "User.withRoles";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -85,8 +99,14 @@ public class User {
     @Pattern(regexp = "\\d{4}-\\d{2}-\\d{2}", message = "Birthdate must be in the format 'YYYY-MM-DD'")
     private String birthdate;
 
+    /**
+     * SHA-256 of the user's profile picture, or null if they haven't uploaded
+     * one.
+     */
+    private String profilePictureHash;
+
     @NonNull
-    @ManyToMany(fetch = FetchType.EAGER)
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(name = "users_roles", joinColumns = @JoinColumn(name = "user_id", referencedColumnName = "id"), inverseJoinColumns = @JoinColumn(name = "role_id", referencedColumnName = "id"))
     private Set<Role> roles;
 
@@ -0,0 +1,18 @@
+package fr.cytech.projetdevwebbackend.users.model.projections;
+
+/**
+ * Projection of a user onto their profile picture, used to find the picture
+ * without loading the user.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public interface ProfilePictureProjection {
+    Long getId();
+
+    /**
+     * SHA-256 of the user's profile picture, or null if they haven't uploaded
+     * one.
+     */
+    String getProfilePictureHash();
+}
@@ -5,6 +5,7 @@ import java.util.List;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.users.model.Report;
 import fr.cytech.projetdevwebbackend.users.model.User;
@@ -13,6 +14,7 @@ import fr.cytech.projetdevwebbackend.users.model.projections.ReportProjection;
 /**
  * Repository for managing Report entities.
  */
+@Transactional(readOnly = true)
 public interface ReportRepository extends JpaRepository<Report, Long> {
 
     /**
@@ -6,6 +6,7 @@ import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.users.model.Role;
 
@@ -17,6 +18,7 @@ import fr.cytech.projetdevwebbackend.users.model.Role;
  * @author fleefie
  * @since 2025-03-15
  */
+@Transactional(readOnly = true)
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
     /**
@@ -5,12 +5,15 @@ import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.cytech.projetdevwebbackend.users.model.User;
 import fr.cytech.projetdevwebbackend.users.model.projections.AdminSearchProjection;
+import fr.cytech.projetdevwebbackend.users.model.projections.ProfilePictureProjection;
 import fr.cytech.projetdevwebbackend.users.model.projections.UserSearchProjection;
 
 /**
@@ -22,6 +25,7 @@ import fr.cytech.projetdevwebbackend.users.model.projections.UserSearchProjectio
  * @author fleefie
  * @since 2025-03-15
  */
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
     /**
@@ -33,6 +37,16 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsernameOrEmail(String username, String email);
 
+    /**
+     * Finds a user by username or email, along with its roles.
+     *
+     * @param username The username to search for
+     * @param email    The email to search for
+     * @return Optional containing the user if found, empty otherwise
+     */
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesByUsernameOrEmail(String username, String email);
+
     /**
      * Finds a user by username.
      *
@@ -41,6 +55,15 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     Optional<User> findByUsername(String username);
 
+    /**
+     * Finds a user by username, along with its roles.
+     *
+     * @param username The username to search for
+     * @return Optional containing the user if found, empty otherwise
+     */
+    @EntityGraph(User.WITH_ROLES)
+    Optional<User> findWithRolesByUsername(String username);
+
     /**
      * Finds a user by email.
      *
@@ -113,4 +136,43 @@ public interface UserRepository extends JpaRepository<User, Long> {
      */
     @Query("SELECT u.score FROM User u WHERE u.username = :username")
     Integer getUserScoreByUsername(@Param("username") String username);
+
+    /**
+     * Gets the score for a given user by id.
+     *
+     * @param id The id of the user
+     * @return The score stored in the database, or null if the user doesn't exist
+     */
+    @Query("SELECT u.score FROM User u WHERE u.id = :id")
+    Integer getUserScoreById(@Param("id") Long id);
+
+    /**
+     * Finds the id of a user by username or email, without loading the user.
+     *
+     * @param usernameOrEmail The username or email to search for
+     * @return Optional containing the user's id if found, empty otherwise
+     */
+    @Query("SELECT u.id FROM User u WHERE u.username = :usernameOrEmail OR u.email = :usernameOrEmail")
+    Optional<Long> findIdByUsernameOrEmail(@Param("usernameOrEmail") String usernameOrEmail);
+
+    /**
+     * Finds the profile picture of a user by username or email, without
+     * loading the user.
+     *
+     * @param usernameOrEmail The username or email to search for
+     * @return Optional containing the user's picture if the user was found,
+     *         empty otherwise
+     */
+    @Query("SELECT u.id AS id, u.profilePictureHash AS profilePictureHash FROM User u "
+            + "WHERE u.username = :usernameOrEmail OR u.email = :usernameOrEmail")
+    Optional<ProfilePictureProjection> findProfilePictureByUsernameOrEmail(
+            @Param("usernameOrEmail") String usernameOrEmail);
+
+    /**
+     * Checks whether any user uses a profile picture.
+     *
+     * @param profilePictureHash SHA-256 of the picture
+     * @return true if at least one user uses the picture
+     */
+    boolean existsByProfilePictureHash(String profilePictureHash);
 }
@@ -1,5 +1,7 @@
 package fr.cytech.projetdevwebbackend.users.service;
 
+import java.util.concurrent.CompletableFuture;
+
 import fr.cytech.projetdevwebbackend.errors.types.AuthError;
 import fr.cytech.projetdevwebbackend.users.jwt.JwtAuthResponse;
 import fr.cytech.projetdevwebbackend.users.dto.LoginDto;
@@ -21,6 +23,15 @@ public interface AuthService {
      */
     Either<AuthError, JwtAuthResponse> login(LoginDto loginDto);
 
+    /**
+     * Authenticates a user with their credentials, without blocking the
+     * calling thread on password verification.
+     * 
+     * @param loginDto DTO containing login credentials
+     * @return Future of either an error or the JWT authentication response
+     */
+    CompletableFuture<Either<AuthError, JwtAuthResponse>> loginAsync(LoginDto loginDto);
+
     /**
      * Registers a new user in the system.
      * 
@@ -36,6 +47,22 @@ public interface AuthService {
     Either<AuthError, User> register(String username, String password, String email,
             String name, String birthdate, String gender, Boolean doHash);
 
+    /**
+     * Registers a new user in the system, without blocking the calling thread
+     * on password hashing.
+     * 
+     * @param username  Username for the new account
+     * @param password  Password for the new account
+     * @param email     Email address for the new account
+     * @param name      Display name for the new account
+     * @param birthdate Birthdate of the user
+     * @param gender    Gender of the user
+     * @param doHash    Whether to hash the password (false only for testing)
+     * @return Future of either an error or the created user
+     */
+    CompletableFuture<Either<AuthError, User>> registerAsync(String username, String password, String email,
+            String name, String birthdate, String gender, Boolean doHash);
+
     /**
      * Checks if a user exists by username or email.
      * 
@@ -1,5 +1,7 @@
 package fr.cytech.projetdevwebbackend.users.service;
 
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang3.StringUtils;
@@ -10,9 +12,6 @@ import org.springframework.security.authentication.DisabledException;
 import org.springframework.security.authentication.LockedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import fr.cytech.projetdevwebbackend.errors.types.AuthError;
@@ -23,10 +22,9 @@ import fr.cytech.projetdevwebbackend.users.jwt.JwtAuthResponse;
 import fr.cytech.projetdevwebbackend.users.jwt.JwtTokenProvider;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.User;
-import fr.cytech.projetdevwebbackend.users.model.repository.RoleRepository;
 import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import fr.cytech.projetdevwebbackend.util.Either;
-import jakarta.transaction.Transactional;
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -37,6 +35,10 @@ import lombok.extern.slf4j.Slf4j;
  * user registration.
  * It uses JWT tokens for authentication and implements functional error
  * handling.
+ * <p>
+ * Password verification and hashing run on the
+ * {@link PasswordHashingExecutor}, through the asynchronous variants of login
+ * and registration. New users are saved on the {@link WriteQueue}.
  *
  * @author fleefie
  * @since 2025-03-15
@@ -53,33 +55,42 @@ public class AuthServiceImpl implements AuthService {
 
     private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final RoleRepository roleRepository;
+    private final RoleRegistry roleRegistry;
     private final JwtTokenProvider jwtTokenProvider;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final WriteQueue writeQueue;
 
     /**
      * Creates an authentication service with required dependencies.
      *
      * @param authenticationManager Manager for authentication operations
      * @param userRepository        Repository for user data access
-     * @param roleRepository        Repository for role management
+     * @param roleRegistry          Catalogue of the roles
      * @param jwtTokenProvider      Provider for JWT token operations
+     * @param passwordHashingExecutor Executor hashing and verifying passwords
+     * @param writeQueue            Queue running the database writes
      */
     @Autowired
     public AuthServiceImpl(
             AuthenticationManager authenticationManager,
             UserRepository userRepository,
-            RoleRepository roleRepository,
-            JwtTokenProvider jwtTokenProvider) {
+            RoleRegistry roleRegistry,
+            JwtTokenProvider jwtTokenProvider,
+            PasswordHashingExecutor passwordHashingExecutor,
+            WriteQueue writeQueue) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.roleRepository = roleRepository;
+        this.roleRegistry = roleRegistry;
         this.jwtTokenProvider = jwtTokenProvider;
-        this.passwordEncoder = new BCryptPasswordEncoder();
+        this.passwordHashingExecutor = passwordHashingExecutor;
+        this.writeQueue = writeQueue;
     }
 
     /**
      * Authenticates a user and provides a JWT token upon successful login.
+     * <p>
+     * This verifies the password on the calling thread, prefer
+     * {@link #loginAsync(LoginDto)}.
      *
      * @param loginDto DTO containing login credentials
      * @return Either containing an error or the JWT authentication response
@@ -105,9 +116,6 @@ public class AuthServiceImpl implements AuthService {
                 return Either.left(AuthError.ACCOUNT_NOT_ACCEPTED);
             }
 
-            // Set the authentication in security context
-            SecurityContextHolder.getContext().setAuthentication(authentication);
-
             // Generate JWT token
             String token = jwtTokenProvider.generateToken(authentication);
 
@@ -129,6 +137,17 @@ public class AuthServiceImpl implements AuthService {
         }
     }
 
+    /**
+     * Authenticates a user on the password hashing executor.
+     *
+     * @param loginDto DTO containing login credentials
+     * @return Future of either an error or the JWT authentication response
+     */
+    @Override
+    public CompletableFuture<Either<AuthError, JwtAuthResponse>> loginAsync(LoginDto loginDto) {
+        return passwordHashingExecutor.submit("login", () -> login(loginDto));
+    }
+
     /**
      * Checks if a user with the given username or email already exists.
      *
@@ -142,7 +161,10 @@ public class AuthServiceImpl implements AuthService {
     }
 
     /**
-     * Registers a new user account with validation.
+     * Registers a new user account with validation, waiting for its password
+     * to be hashed.
+     * <p>
+     * Inside a transaction, the user is saved in that transaction.
      *
      * @param username Username for the new account
      * @param password Password for the new account
@@ -152,91 +174,168 @@ public class AuthServiceImpl implements AuthService {
      * @return Either containing an error or the created user
      */
     @Override
-    @Transactional
     public Either<AuthError, User> register(String username, String password, String email,
             String name, String birthdate, String gender, Boolean doHash) {
         log.debug("Processing registration for username: {}, email: {}", username, email);
 
+        Either<AuthError, Role> pendingRole = prepareRegistration(username, password, email, name, birthdate,
+                gender);
+        if (pendingRole.isLeft()) {
+            return Either.left(pendingRole.getLeft());
+        }
+
+        return hashPassword(password, doHash).join()
+                .map(hash -> writeQueue.execute(
+                        () -> saveUser(username, email, name, hash, pendingRole.getRight())));
+    }
+
+    /**
+     * Registers a new user account with validation.
+     * <p>
+     * The registration is validated on the calling thread, then the password
+     * is hashed on the password hashing executor, and the user is saved on
+     * the {@link WriteQueue}. No transaction is held while hashing, and the
+     * hashing threads never wait for the database.
+     *
+     * @param username Username for the new account
+     * @param password Password for the new account
+     * @param email    Email address for the new account
+     * @param name     Display name for the new account
+     * @param doHash   Whether to hash the password (false only for testing)
+     * @return Future of either an error or the created user
+     */
+    @Override
+    public CompletableFuture<Either<AuthError, User>> registerAsync(String username, String password,
+            String email, String name, String birthdate, String gender, Boolean doHash) {
+        log.debug("Processing registration for username: {}, email: {}", username, email);
+
+        Either<AuthError, Role> pendingRole = prepareRegistration(username, password, email, name, birthdate,
+                gender);
+        if (pendingRole.isLeft()) {
+            return CompletableFuture.completedFuture(Either.left(pendingRole.getLeft()));
+        }
+
+        return hashPassword(password, doHash).thenCompose(hashed -> {
+            if (hashed.isLeft()) {
+                return CompletableFuture.completedFuture(Either.<AuthError, User>left(hashed.getLeft()));
+            }
+            return writeQueue.submit(() -> Either.<AuthError, User>right(
+                    saveUser(username, email, name, hashed.getRight(), pendingRole.getRight())));
+        });
+    }
+
+    /**
+     * Validates a registration and finds the role given to new users.
+     *
+     * @return Either the first problem found, or the role of new users
+     */
+    private Either<AuthError, Role> prepareRegistration(String username, String password, String email,
+            String name, String birthdate, String gender) {
+        Optional<AuthError> invalid = validateRegistration(username, password, email, name, birthdate, gender);
+        if (invalid.isPresent()) {
+            return Either.left(invalid.get());
+        }
+
+        // Get pending role
+        Optional<Role> pendingRole = roleRegistry.findByName(Role.ROLE_PENDING);
+        if (pendingRole.isEmpty()) {
+            log.error("Cannot register user: PENDING role not found");
+            return Either.left(AuthError.ROLE_NOT_FOUND);
+        }
+        return Either.right(pendingRole.get());
+    }
+
+    /**
+     * Hashes the password of a new user on the password hashing executor.
+     *
+     * @param password The password
+     * @param doHash   Whether to hash the password (false only for testing)
+     * @return Future of either an error or the password to store
+     */
+    private CompletableFuture<Either<AuthError, String>> hashPassword(String password, boolean doHash) {
+        return doHash
+                ? passwordHashingExecutor.encode(password)
+                : CompletableFuture.completedFuture(Either.right(password));
+    }
+
+    private User saveUser(String username, String email, String name, String hash, Role pendingRole) {
+        User user = new User(name, username, email, hash, false);
+        user.addRole(pendingRole);
+        User savedUser = userRepository.save(user);
+
+        log.info("User registered successfully: {}", username);
+        return savedUser;
+    }
+
+    /**
+     * Validates the information of a new user account.
+     *
+     * @return The first problem found, or empty if the account can be created
+     */
+    private Optional<AuthError> validateRegistration(String username, String password, String email,
+            String name, String birthdate, String gender) {
+
         // Empty field validation
         if (StringUtils.isBlank(username)) {
-            return Either.left(AuthError.EMPTY_USERNAME);
+            return Optional.of(AuthError.EMPTY_USERNAME);
         }
         if (StringUtils.isBlank(password)) {
-            return Either.left(AuthError.EMPTY_PASSWORD);
+            return Optional.of(AuthError.EMPTY_PASSWORD);
         }
         if (StringUtils.isBlank(email)) {
-            return Either.left(AuthError.EMPTY_EMAIL);
+            return Optional.of(AuthError.EMPTY_EMAIL);
         }
         if (StringUtils.isBlank(name)) {
-            return Either.left(AuthError.EMPTY_NAME);
+            return Optional.of(AuthError.EMPTY_NAME);
         }
         if (StringUtils.isBlank(birthdate)) {
-            return Either.left(AuthError.EMPTY_BIRTHDATE);
+            return Optional.of(AuthError.EMPTY_BIRTHDATE);
         }
         if (StringUtils.isBlank(gender)) {
-            return Either.left(AuthError.EMPTY_GENDER);
+            return Optional.of(AuthError.EMPTY_GENDER);
         }
 
         // Format validation
         if (!Pattern.compile(EMAIL_REGEX).matcher(email).matches()) {
-            return Either.left(AuthError.INVALID_EMAIL_FORMAT);
+            return Optional.of(AuthError.INVALID_EMAIL_FORMAT);
         }
         if (!StringUtils.isAlphanumeric(username)) {
-            return Either.left(AuthError.USERNAME_NOT_ALPHANUMERIC);
+            return Optional.of(AuthError.USERNAME_NOT_ALPHANUMERIC);
         }
         if (!StringUtils.isAlphanumericSpace(name)) {
-            return Either.left(AuthError.NAME_NOT_ALPHANUMERIC_SPACE);
+            return Optional.of(AuthError.NAME_NOT_ALPHANUMERIC_SPACE);
         }
         if (!StringUtils.isAsciiPrintable(password)) {
-            return Either.left(AuthError.PASSWORD_NOT_ASCII);
+            return Optional.of(AuthError.PASSWORD_NOT_ASCII);
         }
         if (StringUtils.isAlphanumericSpace(password)) {
-            return Either.left(AuthError.PASSWORD_TOO_SIMPLE);
+            return Optional.of(AuthError.PASSWORD_TOO_SIMPLE);
         }
         if (password.length() < MIN_PASSWORD_LENGTH) {
-            return Either.left(AuthError.PASSWORD_TOO_SHORT);
+            return Optional.of(AuthError.PASSWORD_TOO_SHORT);
         }
 
         // Check if user exists
         if (userRepository.existsByUsername(username)) {
-            return Either.left(AuthError.USERNAME_ALREADY_EXISTS);
+            return Optional.of(AuthError.USERNAME_ALREADY_EXISTS);
         }
         if (userRepository.existsByEmail(email)) {
-            return Either.left(AuthError.EMAIL_ALREADY_EXISTS);
-        }
-
-        // Get pending role
-        Role pendingRole = roleRepository.findByName(Role.ROLE_PENDING)
-                .orElse(null);
-
-        if (pendingRole == null) {
-            log.error("Cannot register user: PENDING role not found");
-            return Either.left(AuthError.ROLE_NOT_FOUND);
+            return Optional.of(AuthError.EMAIL_ALREADY_EXISTS);
         }
 
-        // Hash password if needed
-        String passwordHashed = doHash ? passwordEncoder.encode(password) : password;
-
-        // Create and save user
-        User user = new User(name, username, email, passwordHashed, false);
-        user.addRole(pendingRole);
-        User savedUser = userRepository.save(user);
-
-        log.info("User registered successfully: {}", username);
-        return Either.right(savedUser);
+        return Optional.empty();
     }
 
     /**
      * Returns the current user from the provided JWT token.
+     * <p>
+     * Controllers should take a {@link fr.cytech.projetdevwebbackend.users.jwt.CurrentUser}
+     * parameter instead, which reuses the token already parsed for the request.
      */
     public Either<Error, User> getUserFromToken(String token) {
         log.debug("Fetching user from token: {}", token);
 
-        // Validate and parse the token
-        if (!jwtTokenProvider.validateToken(token)) {
-            return Either.left(TokenError.INVALID_TOKEN);
-        }
-
+        // Validate and parse the token, only once
         String username = jwtTokenProvider.extractUsername(token).fold(
                 error -> {
                     log.error("Failed to extract username from token: {}", error);
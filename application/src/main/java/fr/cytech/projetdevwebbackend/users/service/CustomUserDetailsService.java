@@ -3,19 +3,24 @@ package fr.cytech.projetdevwebbackend.users.service;
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
 import fr.cytech.projetdevwebbackend.errors.types.AuthError;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import fr.cytech.projetdevwebbackend.util.Either;
+import fr.cytech.projetdevwebbackend.util.ExpiringCache;
 
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 /**
@@ -24,6 +29,11 @@ import java.util.stream.Collectors;
  * <p>
  * This service loads user-specific data for authentication and authorization.
  * It provides both exception-based and functional error handling approaches.
+ * <p>
+ * Since every authenticated request loads its user's details, they are cached
+ * as immutable snapshots for a limited time. The cache is invalidated by the
+ * {@link UserChangedEvent}s published when users change, so that new roles or
+ * credentials take effect immediately.
  *
  * @author fleefie
  * @since 2025-03-15
@@ -34,14 +44,30 @@ public class CustomUserDetailsService implements UserDetailsService, UserDetails
 
     private final UserRepository userRepository;
 
+    /** Details of recently loaded users, by the username or email they were loaded with */
+    private final ExpiringCache<String, UserDetailsSnapshot> cache;
+    private final long cacheTtlMillis;
+
+    /**
+     * Incremented on every invalidation, so that details read before an
+     * invalidation are never cached after it.
+     */
+    private final AtomicLong cacheGeneration = new AtomicLong();
+
     /**
      * Creates a new CustomUserDetailsService with the required repository.
      *
-     * @param userRepository Repository for user data access
+     * @param userRepository    Repository for user data access
+     * @param cacheMaximumSize  Maximum number of cached user details
+     * @param cacheTtlMillis    Time user details are cached for, in milliseconds
      */
     @Autowired
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository,
+            @Value("${app.user-details-cache.maximum-size:1000}") int cacheMaximumSize,
+            @Value("${app.user-details-cache.ttl-milliseconds:300000}") long cacheTtlMillis) {
         this.userRepository = userRepository;
+        this.cache = new ExpiringCache<>(cacheMaximumSize);
+        this.cacheTtlMillis = cacheTtlMillis;
     }
 
     /**
@@ -75,10 +101,45 @@ public class CustomUserDetailsService implements UserDetailsService, UserDetails
      */
     @Override
     public Either<AuthError, UserDetails> findUserDetails(String usernameOrEmail) {
+        Optional<UserDetailsSnapshot> cached = cache.get(usernameOrEmail);
+        if (cached.isPresent()) {
+            return Either.right(cached.get().toUserDetails());
+        }
+
+        long generation = cacheGeneration.get();
+        return loadUserDetails(usernameOrEmail).ifRight(userDetails -> {
+            UserDetailsSnapshot snapshot = UserDetailsSnapshot.of(userDetails);
+            // Don't cache details that may have been invalidated while loading them
+            if (cacheGeneration.get() == generation) {
+                cache.put(usernameOrEmail, snapshot, System.currentTimeMillis() + cacheTtlMillis);
+            }
+        });
+    }
+
+    /**
+     * Drops the cached details of a changed user, once the change is committed.
+     *
+     * @param event The change made to the user
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserChanged(UserChangedEvent event) {
+        cacheGeneration.incrementAndGet();
+        int removed = cache.removeValuesIf(snapshot -> snapshot.username().equals(event.username()));
+        log.debug("Dropped {} cached details of user {} after change {}", removed, event.username(),
+                event.change());
+    }
+
+    /**
+     * Loads user details from the database.
+     *
+     * @param usernameOrEmail The username or email to load
+     * @return Either containing error information or user details
+     */
+    private Either<AuthError, UserDetails> loadUserDetails(String usernameOrEmail) {
         log.debug("Loading user details for: {}", usernameOrEmail);
 
         // Find user by username or email
-        return userRepository.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
+        return userRepository.findWithRolesByUsernameOrEmail(usernameOrEmail, usernameOrEmail)
                 .map(
                         // If user was found,
                         user -> {
@@ -108,6 +169,36 @@ public class CustomUserDetailsService implements UserDetailsService, UserDetails
                         });
     }
 
+    /**
+     * Immutable copy of a user's details.
+     * <p>
+     * Spring Security erases the password of the details it authenticates, so
+     * cached details are copied into a new UserDetails for every use.
+     */
+    private record UserDetailsSnapshot(String username, String password, boolean enabled,
+            boolean accountNonLocked, Set<GrantedAuthority> authorities) {
+
+        static UserDetailsSnapshot of(UserDetails userDetails) {
+            return new UserDetailsSnapshot(
+                    userDetails.getUsername(),
+                    userDetails.getPassword(),
+                    userDetails.isEnabled(),
+                    userDetails.isAccountNonLocked(),
+                    Set.copyOf(userDetails.getAuthorities()));
+        }
+
+        UserDetails toUserDetails() {
+            return new org.springframework.security.core.userdetails.User(
+                    username,
+                    password,
+                    enabled,
+                    true, // accountNonExpired
+                    true, // credentialsNonExpired
+                    accountNonLocked,
+                    authorities);
+        }
+    }
+
     /**
      * Maps domain role entities to Spring Security GrantedAuthority objects.
      *
@@ -0,0 +1,144 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import fr.cytech.projetdevwebbackend.errors.types.AuthError;
+import fr.cytech.projetdevwebbackend.util.Either;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Dedicated executor for password hashing and verification.
+ * <p>
+ * BCrypt takes around 100ms of CPU per password. Running it on the servlet
+ * threads lets a burst of logins starve every other endpoint, so it runs on
+ * a pool sized to the number of cores instead, with a bounded queue. Once
+ * the queue is full, tasks are rejected immediately with
+ * {@link AuthError#SERVER_BUSY} rather than piling up.
+ * <p>
+ * The queue depth and active threads are published as the
+ * {@code password.hashing.queue.size} and {@code password.hashing.active}
+ * metrics, the task durations as {@code password.hashing.duration}, tagged
+ * by operation, and the rejections as {@code password.hashing.rejected}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+@Slf4j
+public class PasswordHashingExecutor {
+
+    private final ThreadPoolExecutor executor;
+    private final PasswordEncoder passwordEncoder;
+    private final MeterRegistry meterRegistry;
+
+    private final Counter rejected;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the executor and starts its threads.
+     *
+     * @param passwordEncoder Encoder hashing the passwords
+     * @param meterRegistry   Registry to publish the executor's metrics to
+     * @param threads         Number of threads, or 0 for one per core
+     * @param queueCapacity   Maximum number of tasks waiting for a thread
+     */
+    @Autowired
+    public PasswordHashingExecutor(PasswordEncoder passwordEncoder, MeterRegistry meterRegistry,
+            @Value("${app.password-hashing.threads:0}") int threads,
+            @Value("${app.password-hashing.queue-capacity:100}") int queueCapacity) {
+        this.passwordEncoder = passwordEncoder;
+        this.meterRegistry = meterRegistry;
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new HashingThreadFactory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        log.info("Password hashing uses {} threads and a queue of {} tasks", poolSize, queueCapacity);
+
+        Gauge.builder("password.hashing.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Password hashing tasks waiting for a thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Password hashing tasks running")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Password hashing tasks rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a task dominated by password hashing or verification on the
+     * executor.
+     *
+     * @param operation Name of the operation, used to tag its metrics
+     * @param task      The task to run
+     * @return A future completed with the result of the task, or with
+     *         {@link AuthError#SERVER_BUSY} if the executor is saturated
+     */
+    public <T> CompletableFuture<Either<AuthError, T>> submit(String operation,
+            Supplier<Either<AuthError, T>> task) {
+        Timer timer = timers.computeIfAbsent(operation, name -> Timer.builder("password.hashing.duration")
+                .tag("operation", name)
+                .description("Time spent running password hashing tasks")
+                .register(meterRegistry));
+        try {
+            return CompletableFuture.supplyAsync(() -> timer.record(task), executor);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Rejected {}: password hashing queue is full", operation);
+            return CompletableFuture.completedFuture(Either.left(AuthError.SERVER_BUSY));
+        }
+    }
+
+    /**
+     * Hashes a password on the executor.
+     *
+     * @param rawPassword The password to hash
+     * @return A future completed with the hash, or with
+     *         {@link AuthError#SERVER_BUSY} if the executor is saturated
+     */
+    public CompletableFuture<Either<AuthError, String>> encode(String rawPassword) {
+        return submit("encode", () -> Either.right(passwordEncoder.encode(rawPassword)));
+    }
+
+    /**
+     * Stops accepting tasks, letting the queued ones finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * Creates named daemon threads.
+     */
+    private static class HashingThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "password-hashing-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
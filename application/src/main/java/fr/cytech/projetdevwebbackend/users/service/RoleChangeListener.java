@@ -0,0 +1,40 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import fr.cytech.projetdevwebbackend.users.model.Role;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * JPA entity listener publishing a {@link RoleChangedEvent} for every change
+ * made to a role, whichever code made it.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+public class RoleChangeListener {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Creates a new RoleChangeListener.
+     *
+     * @param eventPublisher Publisher of the role change events
+     */
+    @Autowired
+    public RoleChangeListener(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onRoleChanged(Role role) {
+        eventPublisher.publishEvent(new RoleChangedEvent(role.getName()));
+    }
+}
@@ -0,0 +1,15 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+/**
+ * Application event published whenever a role is created, renamed or
+ * deleted.
+ * <p>
+ * Events are published during the flush of the change, and should be
+ * handled once it commits.
+ *
+ * @param roleName the name of the changed role
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public record RoleChangedEvent(String roleName) {
+}
@@ -0,0 +1,95 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import fr.cytech.projetdevwebbackend.users.model.Role;
+import fr.cytech.projetdevwebbackend.users.model.repository.RoleRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory catalogue of the roles, by name and by id.
+ * <p>
+ * Roles are a small table that almost never changes, yet they are resolved
+ * on every signup, acceptance and restricted announcement. They are loaded
+ * once at startup into immutable maps, which are replaced whenever a
+ * {@link RoleChangedEvent} is committed.
+ * <p>
+ * The returned roles are detached entities. They can be added to users and
+ * announcements, but must not be modified.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+@Slf4j
+public class RoleRegistry {
+
+    private final RoleRepository roleRepository;
+
+    private volatile Catalogue catalogue = new Catalogue(Map.of(), Map.of());
+
+    /**
+     * Creates a new RoleRegistry. The roles are loaded once it is constructed.
+     *
+     * @param roleRepository Repository the roles are loaded from
+     */
+    @Autowired
+    public RoleRegistry(RoleRepository roleRepository) {
+        this.roleRepository = roleRepository;
+    }
+
+    /**
+     * Finds a role by its name.
+     *
+     * @param name The name of the role
+     * @return An Optional containing the role if found, or empty if not found
+     */
+    public Optional<Role> findByName(String name) {
+        return Optional.ofNullable(catalogue.byName().get(name));
+    }
+
+    /**
+     * Finds a role by its id.
+     *
+     * @param id The id of the role
+     * @return An Optional containing the role if found, or empty if not found
+     */
+    public Optional<Role> findById(Long id) {
+        return Optional.ofNullable(catalogue.byId().get(id));
+    }
+
+    /**
+     * Reloads the roles from the database.
+     */
+    @PostConstruct
+    public void refresh() {
+        List<Role> roles = roleRepository.findAll();
+        catalogue = new Catalogue(
+                roles.stream().collect(Collectors.toUnmodifiableMap(Role::getName, Function.identity())),
+                roles.stream().collect(Collectors.toUnmodifiableMap(Role::getId, Function.identity())));
+        log.info("Loaded {} roles", roles.size());
+    }
+
+    /**
+     * Reloads the roles once a change to them is committed.
+     *
+     * @param event The change made to a role
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRoleChanged(RoleChangedEvent event) {
+        log.debug("Role {} changed, reloading roles", event.roleName());
+        refresh();
+    }
+
+    private record Catalogue(Map<String, Role> byName, Map<Long, Role> byId) {
+    }
+}
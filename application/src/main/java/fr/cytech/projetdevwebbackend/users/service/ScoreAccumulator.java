@@ -0,0 +1,208 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Write-behind accumulator for user score changes.
+ * <p>
+ * Score changes are added to in-memory counters, keyed by user id, and
+ * written to the database periodically in a single batched update, run on the
+ * {@link WriteQueue}. This keeps
+ * read endpoints that award score from turning into SQLite write
+ * transactions, which would all serialize on the database's single writer
+ * lock.
+ * <p>
+ * Pending changes are flushed on shutdown. Scores read through
+ * {@link #withPending(long, Supplier)} include the changes that have not been
+ * flushed yet, and those being flushed until their update is committed.
+ * Readers never lock: they read the stored score first, then the unwritten
+ * changes, and read again if changes moved to the database meanwhile. No lock
+ * is ever held across a database call, so readers never wait for the write
+ * queue, nor the write queue for readers.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+@Slf4j
+public class ScoreAccumulator {
+
+    private static final String UPDATE_SCORE = "UPDATE users SET score = score + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final WriteQueue writeQueue;
+
+    /**
+     * Score changes that haven't been written yet, by user id. Users only
+     * have an entry while they have changes to write.
+     */
+    private final Map<Long, Long> pending = new ConcurrentHashMap<>();
+
+    /** Score changes being written by the current flush, by user id */
+    private volatile Map<Long, Long> inFlight = Map.of();
+
+    /**
+     * Incremented before and after changes move between the pending changes,
+     * the in-flight changes and the database, so it is odd while they move.
+     * Readers retry when it changed, so that they never count a change twice
+     * or miss it.
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /** Held for the whole of a flush, so that flushes never overlap */
+    private final Lock flushing = new ReentrantLock();
+
+    @Autowired
+    public ScoreAccumulator(JdbcTemplate jdbcTemplate, WriteQueue writeQueue) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.writeQueue = writeQueue;
+    }
+
+    /**
+     * Adds to a user's score. The change is written on the next flush.
+     *
+     * @param userId id of the user
+     * @param delta  score differential to apply
+     */
+    public void add(long userId, long delta) {
+        pending.merge(userId, delta, Long::sum);
+    }
+
+    /**
+     * Reads a user's score from the database and adds the pending changes.
+     *
+     * @param userId    id of the user
+     * @param persisted reads the score currently stored in the database
+     * @return the up to date score
+     */
+    public long withPending(long userId, Supplier<Integer> persisted) {
+        while (true) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                long stored = persisted.get();
+                long unwritten = pending.getOrDefault(userId, 0L) + inFlight.getOrDefault(userId, 0L);
+                if (version.get() == before) {
+                    return stored + unwritten;
+                }
+            }
+            // Yields rather than spins, so a virtual thread frees its carrier
+            Thread.yield();
+        }
+    }
+
+    /**
+     * Drops the pending changes of a user, for instance once it is deleted.
+     *
+     * @param userId id of the user
+     */
+    public void discard(long userId) {
+        pending.remove(userId);
+    }
+
+    /**
+     * Writes all pending changes in a single batched update.
+     * <p>
+     * The changes are moved to the in-flight changes, which readers still
+     * count until the update is committed. If the update fails, the changes are
+     * kept for the next flush.
+     */
+    @Scheduled(fixedDelayString = "${app.score.flush-interval-milliseconds:5000}")
+    public void flush() {
+        flushing.lock();
+        try {
+            Map<Long, Long> flushed = new HashMap<>();
+            version.incrementAndGet();
+            try {
+                // Each change is removed atomically, a concurrent add after that
+                // starts a new entry for the next flush
+                for (Long userId : pending.keySet()) {
+                    Long delta = pending.remove(userId);
+                    if (delta != null && delta != 0) {
+                        flushed.put(userId, delta);
+                    }
+                }
+                inFlight = flushed;
+            } finally {
+                version.incrementAndGet();
+            }
+
+            if (flushed.isEmpty()) {
+                return;
+            }
+
+            List<Object[]> updates = new ArrayList<>(flushed.size());
+            flushed.forEach((userId, delta) -> updates.add(new Object[] { delta, userId }));
+            try {
+                writeQueue.execute(() -> {
+                    TransactionSynchronizationManager.registerSynchronization(new InFlightRelease());
+                    return jdbcTemplate.batchUpdate(UPDATE_SCORE, updates);
+                });
+                log.debug("Flushed score changes of {} users", updates.size());
+            } catch (RuntimeException e) {
+                log.error("Failed to flush score changes, retrying later: {}", e.getMessage());
+                version.incrementAndGet();
+                try {
+                    flushed.forEach(this::add);
+                    inFlight = Map.of();
+                } finally {
+                    version.incrementAndGet();
+                }
+            }
+        } finally {
+            flushing.unlock();
+        }
+    }
+
+    /**
+     * Writes the remaining changes before the application stops.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /**
+     * Marks the changes as moving while a flush commits, and drops the
+     * in-flight changes once they are committed. A rolled back update is either
+     * run again by the write queue, or put back by the flush.
+     */
+    private class InFlightRelease implements TransactionSynchronization {
+        private boolean completing;
+
+        @Override
+        public void beforeCompletion() {
+            completing = true;
+            version.incrementAndGet();
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            if (!completing) {
+                return;
+            }
+            if (status == STATUS_COMMITTED) {
+                inFlight = Map.of();
+            }
+            version.incrementAndGet();
+        }
+    }
+}
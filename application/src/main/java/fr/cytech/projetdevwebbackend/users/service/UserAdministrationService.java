@@ -1,25 +1,37 @@
 package fr.cytech.projetdevwebbackend.users.service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import fr.cytech.projetdevwebbackend.errors.types.AuthError;
 import fr.cytech.projetdevwebbackend.errors.types.Error;
 import fr.cytech.projetdevwebbackend.errors.types.FileError;
 import fr.cytech.projetdevwebbackend.errors.types.UserAdministrationError;
 import fr.cytech.projetdevwebbackend.users.dto.UserUpdateDto;
 import fr.cytech.projetdevwebbackend.users.model.Role;
 import fr.cytech.projetdevwebbackend.users.model.User;
-import fr.cytech.projetdevwebbackend.users.model.repository.RoleRepository;
 import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
 import fr.cytech.projetdevwebbackend.util.Either;
+import fr.cytech.projetdevwebbackend.util.services.ProfilePicture;
 import fr.cytech.projetdevwebbackend.util.services.ProfilePictureFileAccessService;
+import fr.cytech.projetdevwebbackend.util.services.ProfilePictureVariantService;
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
+import jakarta.annotation.PostConstruct;
 import jakarta.transaction.Transactional;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +46,8 @@ import lombok.extern.slf4j.Slf4j;
  * Note: In this application:
  * - "Verified" means a user has verified their email address
  * - "Accepted" means a user's PENDING role has been removed by an administrator
+ * <p>
+ * Every change affecting authentication publishes a {@link UserChangedEvent}.
  *
  * @author fleefie
  * @since 2025-03-15
@@ -43,11 +57,26 @@ import lombok.extern.slf4j.Slf4j;
 @NoArgsConstructor
 public class UserAdministrationService {
     @Autowired
-    private RoleRepository roleRepository;
+    private RoleRegistry roleRegistry;
     @Autowired
     private UserRepository userRepository;
     @Autowired
     private ProfilePictureFileAccessService profilePictureFileAccessService;
+    @Autowired
+    private ProfilePictureVariantService profilePictureVariantService;
+    @Autowired
+    private ScoreAccumulator scoreAccumulator;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+    @Autowired
+    private PasswordHashingExecutor passwordHashingExecutor;
+    @Autowired
+    private WriteQueue writeQueue;
+
+    @Value("${app.avatar.max-concurrent-uploads:4}")
+    private int maxConcurrentUploads;
+    /** Permits to upload a profile picture, so that uploads can't pile up */
+    private Semaphore uploadPermits;
 
     /**
      * Standard role names used in the application.
@@ -55,6 +84,11 @@ public class UserAdministrationService {
     private static final String ROLE_PENDING = "PENDING";
     private static final String ROLE_USER = "USER";
 
+    @PostConstruct
+    private void createUploadPermits() {
+        uploadPermits = new Semaphore(maxConcurrentUploads);
+    }
+
     /**
      * Approves a pending user account by changing their role from PENDING to USER.
      * <p>
@@ -72,7 +106,7 @@ public class UserAdministrationService {
         log.info("Processing user acceptance request for username: {}", username);
 
         // Fetch required entities
-        User user = userRepository.findByUsername(username)
+        User user = userRepository.findWithRolesByUsername(username)
                 .orElse(null);
 
         if (user == null) {
@@ -104,11 +138,12 @@ public class UserAdministrationService {
         user.removeRole(pendingRole);
         user.addRole(userRole);
 
-        // Save changes
-        User savedUser = userRepository.save(user);
+        // The user is managed, changes are written on commit. Saving would merge
+        // it, looking up the detached roles of the registry again.
+        eventPublisher.publishEvent(new UserChangedEvent(username, UserChangedEvent.Change.ACCEPTED));
         log.info("User '{}' has been successfully approved", username);
 
-        return Either.right(savedUser);
+        return Either.right(user);
     }
 
     /**
@@ -118,7 +153,7 @@ public class UserAdministrationService {
      * @return The Role object or null if not found
      */
     private Role getRoleOrNull(String roleName) {
-        return roleRepository.findByName(roleName).orElse(null);
+        return roleRegistry.findByName(roleName).orElse(null);
     }
 
     /**
@@ -133,6 +168,8 @@ public class UserAdministrationService {
         User user = userRepository.findByUsernameOrEmail(username, username).orElse(null);
         if (user != null) {
             userRepository.delete(user);
+            scoreAccumulator.discard(user.getId());
+            eventPublisher.publishEvent(new UserChangedEvent(user.getUsername(), UserChangedEvent.Change.DELETED));
             return Optional.empty();
         } else {
             return Optional.of(UserAdministrationError.USER_NOT_FOUND);
@@ -148,10 +185,12 @@ public class UserAdministrationService {
      */
     @Transactional
     public Optional<UserAdministrationError> addRole(String username, String roleName) {
-        return userRepository.findByUsernameOrEmail(username, username)
+        return userRepository.findWithRolesByUsernameOrEmail(username, username)
                 .map(user -> {
-                    return roleRepository.findByName(roleName).map(role -> {
+                    return roleRegistry.findByName(roleName).map(role -> {
                         user.addRole(role);
+                        eventPublisher.publishEvent(
+                                new UserChangedEvent(user.getUsername(), UserChangedEvent.Change.ROLES_CHANGED));
                         return Optional.<UserAdministrationError>empty();
                     })
                             .orElseGet(() -> {
@@ -172,10 +211,12 @@ public class UserAdministrationService {
      */
     @Transactional
     public Optional<UserAdministrationError> deleteRole(String username, String roleName) {
-        return userRepository.findByUsernameOrEmail(username, username)
+        return userRepository.findWithRolesByUsernameOrEmail(username, username)
                 .map(user -> {
-                    return roleRepository.findByName(roleName).map(role -> {
+                    return roleRegistry.findByName(roleName).map(role -> {
                         user.removeRole(role);
+                        eventPublisher.publishEvent(
+                                new UserChangedEvent(user.getUsername(), UserChangedEvent.Change.ROLES_CHANGED));
                         return Optional.<UserAdministrationError>empty();
                     })
                             .orElseGet(() -> {
@@ -189,16 +230,18 @@ public class UserAdministrationService {
 
     /**
      * Adds to the user's score
+     * <p>
+     * The change is buffered by the ScoreAccumulator and written to the database
+     * later, so this doesn't open a write transaction.
      * 
      * @param username The name of the user to modify
      * @param delta    Score differential to apply
      * @return Nothing if the operation was sucessful, an error if not
      */
-    @Transactional
     public Optional<UserAdministrationError> addScore(String username, Integer delta) {
-        return userRepository.findByUsernameOrEmail(username, username)
-                .map(user -> {
-                    user.addScore(delta);
+        return userRepository.findIdByUsernameOrEmail(username)
+                .map(id -> {
+                    scoreAccumulator.add(id, delta);
                     return Optional.<UserAdministrationError>empty();
                 })
                 .orElseGet(() -> {
@@ -207,24 +250,26 @@ public class UserAdministrationService {
     }
 
     /**
-     * Get a user's score.
+     * Get a user's score, including changes that haven't been written to the
+     * database yet.
      */
     public Integer getUserScore(String username) {
-        return userRepository.findByUsernameOrEmail(username, username)
-                .map(user -> {
-                    return user.getScore();
+        return userRepository.findIdByUsernameOrEmail(username)
+                .map(id -> {
+                    return (int) scoreAccumulator.withPending(id,
+                            () -> Optional.ofNullable(userRepository.getUserScoreById(id)).orElse(0));
                 })
                 .orElse(0);
     }
 
     /**
      * Gets a user's profile picture.
-     * Profile pictures as stored under the database as "id.png".
+     * Profile pictures are stored under the hash of their content.
      */
     public Either<Error, byte[]> getUserProfilePicture(String username) {
         return userRepository.findByUsernameOrEmail(username, username)
                 .map(user -> {
-                    return profilePictureFileAccessService.read(user.getId()).fold(
+                    return profilePictureFileAccessService.read(user.getProfilePictureHash()).fold(
                             error -> {
                                 log.error("Error reading file: {}", error);
                                 return Either.<Error, byte[]>left(error);
@@ -245,34 +290,221 @@ public class UserAdministrationService {
                 });
     }
 
+    /**
+     * Finds a user's profile picture, ready to be streamed.
+     *
+     * @param username Username or email of the user
+     * @param size     Size the picture will be displayed at, or null for the
+     *                 whole picture
+     * @return Either an error, or the user's picture, or the default picture
+     *         if the user hasn't uploaded one
+     */
+    public Either<Error, ProfilePicture> findUserProfilePicture(String username, Integer size) {
+        return userRepository.findProfilePictureByUsernameOrEmail(username)
+                .map(user -> profilePictureFileAccessService.find(user.getProfilePictureHash(), size).fold(
+                        error -> {
+                            log.error("Error reading file: {}", error);
+                            return Either.<Error, ProfilePicture>left(error);
+                        },
+                        Either::<Error, ProfilePicture>right))
+                .orElseGet(() -> {
+                    log.error("User not found: {}", username);
+                    return Either.<Error, ProfilePicture>left(UserAdministrationError.USER_NOT_FOUND);
+                });
+    }
+
+    /**
+     * Sets a user's profile picture, once checked to be a valid image. Its
+     * resized variants are generated in the background.
+     * <p>
+     * The picture is streamed to disk rather than loaded in memory. Only a
+     * few uploads run at once, the others being rejected with
+     * {@link FileError#TOO_MANY_UPLOADS} rather than waiting.
+     */
     public Optional<Error> setUserProfilePicture(String username, MultipartFile image) {
-        try {
+        if (!uploadPermits.tryAcquire()) {
+            return Optional.of(FileError.TOO_MANY_UPLOADS);
+        }
+        try (InputStream in = image.getInputStream()) {
             Optional<User> userOpt = userRepository.findByUsername(username);
             if (userOpt.isEmpty()) {
                 return Optional.of(UserAdministrationError.USER_NOT_FOUND);
             }
 
-            byte[] imageBytes = image.getBytes();
-            Long id = userOpt.get().getId();
-            return profilePictureFileAccessService.store(id, imageBytes).map(Optional::<Error>of)
-                    .orElseGet(() -> {
-                        return Optional.empty();
-                    });
+            return setProfilePicture(userOpt.get().getId(), in);
         } catch (IOException e) {
             log.error("Error processing profile picture: {}", e.getMessage());
             return Optional.of(FileError.GENERAL_IO_ERROR);
+        } finally {
+            uploadPermits.release();
+        }
+    }
+
+    /**
+     * Stores a picture, then makes it a user's profile picture on the
+     * {@link WriteQueue}. The picture it replaces is deleted if no other user
+     * uses it.
+     *
+     * @param id Id of the user
+     * @param in The picture
+     * @return Optional of Error if there's a problem, empty Optional if successful
+     */
+    private Optional<Error> setProfilePicture(Long id, InputStream in) {
+        Either<FileError, String> stored = profilePictureFileAccessService.store(in,
+                profilePictureVariantService::check);
+        if (stored.isLeft()) {
+            return Optional.of(stored.getLeft());
+        }
+        String hash = stored.getRight();
+
+        Either<Error, Optional<String>> applied;
+        try {
+            profilePictureVariantService.generate(hash);
+            applied = writeQueue.execute(() -> applyProfilePicture(id, hash));
+        } finally {
+            // Kept from being deleted as unused until then
+            profilePictureFileAccessService.release(hash);
+        }
+        if (applied.isLeft()) {
+            // The user is gone, so the new picture may be unused
+            deleteProfilePictureIfUnused(hash);
+            return Optional.of(applied.getLeft());
+        }
+        applied.getRight().ifPresent(this::deleteProfilePictureIfUnused);
+        return Optional.empty();
+    }
+
+    /**
+     * Makes a stored picture a user's profile picture.
+     *
+     * @param id   Id of the user
+     * @param hash Hash of the picture
+     * @return Either an error, or the hash of the replaced picture if there
+     *         was a different one
+     */
+    private Either<Error, Optional<String>> applyProfilePicture(Long id, String hash) {
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isEmpty()) {
+            return Either.left(UserAdministrationError.USER_NOT_FOUND);
+        }
+
+        User user = userOpt.get();
+        String previous = user.getProfilePictureHash();
+        user.setProfilePictureHash(hash);
+        userRepository.save(user);
+        return Either.right(Optional.ofNullable(previous).filter(previousHash -> !previousHash.equals(hash)));
+    }
+
+    /**
+     * Deletes a profile picture if no user uses it anymore.
+     * <p>
+     * This runs on the {@link WriteQueue}, after the writes that stopped using
+     * the picture, so that the check sees them. Pictures being uploaded again
+     * aren't deleted, see {@link ProfilePictureFileAccessService#store}.
+     *
+     * @param hash Hash of the picture
+     */
+    private void deleteProfilePictureIfUnused(String hash) {
+        try {
+            writeQueue.submit(() -> userRepository.existsByProfilePictureHash(hash)
+                    ? Optional.<FileError>empty()
+                    : profilePictureFileAccessService.delete(hash))
+                    .thenAccept(error -> error.ifPresent(
+                            err -> log.warn("Failed to delete picture {}: {}", hash, err.getMessage())));
+        } catch (RejectedExecutionException e) {
+            log.warn("Left unused picture {}: write queue is full", hash);
+        }
+    }
+
+    /**
+     * Moves the profile pictures stored under their user's id, from before
+     * pictures were stored by content, to the content-addressed store.
+     * Pictures of deleted users, and pictures that wouldn't be accepted as
+     * uploads, are dropped.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void importLegacyProfilePictures() {
+        List<Long> ids = profilePictureFileAccessService.findLegacyPictureIds();
+        if (ids.isEmpty()) {
+            return;
+        }
+        log.info("Moving {} profile pictures to the content-addressed store", ids.size());
+
+        for (Long id : ids) {
+            if (userRepository.existsById(id)) {
+                Either<FileError, InputStream> file = profilePictureFileAccessService.openLegacy(id);
+                if (file.isLeft()) {
+                    log.error("Failed to read profile picture of user {}: {}", id, file.getLeft().getMessage());
+                    continue;
+                }
+                Optional<Error> error;
+                try (InputStream in = file.getRight()) {
+                    error = setProfilePicture(id, in);
+                } catch (IOException e) {
+                    error = Optional.of(FileError.GENERAL_IO_ERROR);
+                }
+                // Kept to try again on the next start
+                if (error.isPresent() && error.get() == FileError.GENERAL_IO_ERROR) {
+                    log.error("Failed to move profile picture of user {}: {}", id, error.get().getMessage());
+                    continue;
+                }
+                error.ifPresent(err -> log.warn("Dropped profile picture of user {}: {}", id, err.getMessage()));
+            }
+            profilePictureFileAccessService.deleteLegacy(id).ifPresent(
+                    error -> log.warn("Failed to delete old profile picture of user {}: {}", id,
+                            error.getMessage()));
         }
     }
 
     /**
      * Updates a user's information.
+     * <p>
+     * The new password is hashed first, then the update is run on the
+     * {@link WriteQueue}, without blocking the calling thread on either.
      * 
      * @param username Current username of the user
      * @param dto      Data Transfer Object containing the new user information
+     * @return Future of an Optional of Error if there's a problem, empty
+     *         Optional if successful
+     */
+    public CompletableFuture<Optional<Error>> updateUser(String username, UserUpdateDto dto) {
+        if (dto.getPassword() == null) {
+            return writeQueue.submit(() -> applyUpdate(username, dto, null));
+        }
+
+        if (dto.getPassword().isBlank()) {
+            return CompletableFuture.completedFuture(Optional.of(UserAdministrationError.INVALID_PASSWORD));
+        }
+
+        if (dto.getPassword().length() < 15) {
+            return CompletableFuture.completedFuture(Optional.of(UserAdministrationError.INVALID_PASSWORD));
+        }
+
+        if (dto.getPasswordConfirm() == null || !dto.getPassword().equals(dto.getPasswordConfirm())) {
+            return CompletableFuture.completedFuture(Optional.of(UserAdministrationError.PASSWORDS_DO_NOT_MATCH));
+        }
+
+        // Hashed on the dedicated executor, which bounds concurrent hashing,
+        // before queuing the update, so that the writer never waits on it
+        return passwordHashingExecutor.encode(dto.getPassword()).thenCompose(hashed -> {
+            if (hashed.isLeft()) {
+                return CompletableFuture.completedFuture(Optional.<Error>of(hashed.getLeft()));
+            }
+            return writeQueue.submit(() -> applyUpdate(username, dto, hashed.getRight()));
+        });
+    }
+
+    /**
+     * Applies an update to a user's information.
+     *
+     * @param username       Current username of the user
+     * @param dto            Data Transfer Object containing the new user
+     *                       information
+     * @param hashedPassword The new password, already hashed, or null to keep
+     *                       the current one
      * @return Optional of Error if there's a problem, empty Optional if successful
      */
-    @Transactional
-    public Optional<Error> updateUser(String username, UserUpdateDto dto) {
+    private Optional<Error> applyUpdate(String username, UserUpdateDto dto, String hashedPassword) {
         Optional<User> userOpt = userRepository.findByUsername(username);
         if (userOpt.isEmpty()) {
             return Optional.of(UserAdministrationError.USER_NOT_FOUND);
@@ -319,20 +551,7 @@ public class UserAdministrationService {
             }
         }
 
-        if (dto.getPassword() != null) {
-            if (dto.getPassword().isBlank()) {
-                return Optional.of(UserAdministrationError.INVALID_PASSWORD);
-            }
-
-            if (dto.getPassword().length() < 15) {
-                return Optional.of(UserAdministrationError.INVALID_PASSWORD);
-            }
-
-            if (dto.getPasswordConfirm() == null || !dto.getPassword().equals(dto.getPasswordConfirm())) {
-                return Optional.of(UserAdministrationError.PASSWORDS_DO_NOT_MATCH);
-            }
-
-            String hashedPassword = BCrypt.hashpw(dto.getPassword(), BCrypt.gensalt());
+        if (hashedPassword != null) {
             user.setPassword(hashedPassword);
             changes = true;
         }
@@ -363,6 +582,7 @@ public class UserAdministrationService {
         if (changes) {
             try {
                 userRepository.save(user);
+                eventPublisher.publishEvent(new UserChangedEvent(username, UserChangedEvent.Change.UPDATED));
                 log.info("User '{}' information updated successfully", username);
             } catch (Exception e) {
                 log.error("Error updating user: {}", e.getMessage(), e);
@@ -0,0 +1,30 @@
+package fr.cytech.projetdevwebbackend.users.service;
+
+/**
+ * Application event published whenever a user's account changes in a way that
+ * affects authentication, such as its roles, credentials or existence.
+ * <p>
+ * Listeners use it to drop what they cache about the user. Events published
+ * within a transaction should be handled once it commits.
+ *
+ * @param username the username of the changed user
+ * @param change   what changed
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public record UserChangedEvent(String username, Change change) {
+
+    /**
+     * Kinds of changes made to a user.
+     */
+    public enum Change {
+        /** The user was accepted by an administrator */
+        ACCEPTED,
+        /** A role was added to or removed from the user */
+        ROLES_CHANGED,
+        /** The user's information, possibly including credentials, changed */
+        UPDATED,
+        /** The user was deleted */
+        DELETED
+    }
+}
@@ -0,0 +1,190 @@
+package fr.cytech.projetdevwebbackend.util;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+/**
+ * A bounded, thread-safe cache whose entries each expire at a given instant.
+ * <p>
+ * Lookups never lock, they only record when the entry was last used, so that
+ * concurrent readers never wait for each other. Once the cache goes over its
+ * maximum size, expired entries are removed, then the least recently used
+ * ones, until a tenth of the cache is free again. A single thread evicts at a
+ * time, the others don't wait for it, so the cache may briefly hold a few
+ * entries more than its maximum. Expired entries are never returned, and are removed when they
+ * are looked up or when {@link #purgeExpired()} is called.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public class ExpiringCache<K, V> {
+
+    private final int maximumSize;
+
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    /** Held by the thread evicting entries */
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumSize the maximum number of entries
+     */
+    public ExpiringCache(int maximumSize) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Cache size must be positive");
+        }
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * Gets a value, if it is cached and hasn't expired.
+     *
+     * @param key the key of the value
+     * @return the value, or empty if it isn't cached
+     */
+    public Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        if (entry.isExpired(System.currentTimeMillis())) {
+            entries.remove(key, entry);
+            return Optional.empty();
+        }
+        entry.lastAccessNanos = System.nanoTime();
+        return Optional.of(entry.value);
+    }
+
+    /**
+     * Caches a value until the given instant.
+     *
+     * @param key             the key of the value
+     * @param value           the value to cache
+     * @param expiresAtMillis the instant the value expires at, in milliseconds
+     *                        since the epoch
+     */
+    public void put(K key, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            entries.remove(key);
+            return;
+        }
+        entries.put(key, new Entry<>(value, expiresAtMillis));
+        if (entries.size() > maximumSize) {
+            evict();
+        }
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key of the value
+     */
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    /**
+     * Removes all the values matching a predicate.
+     *
+     * @param predicate the values to remove
+     * @return the number of values removed
+     */
+    public int removeValuesIf(Predicate<? super V> predicate) {
+        return removeEntriesIf(entry -> predicate.test(entry.value));
+    }
+
+    /**
+     * Removes all the expired values.
+     *
+     * @return the number of values removed
+     */
+    public int purgeExpired() {
+        long now = System.currentTimeMillis();
+        return removeEntriesIf(entry -> entry.isExpired(now));
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Gets the number of cached values, including expired ones that haven't
+     * been removed yet.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    private int removeEntriesIf(Predicate<Entry<V>> predicate) {
+        int removed = 0;
+        for (Map.Entry<K, Entry<V>> entry : entries.entrySet()) {
+            // Only removed if it wasn't replaced meanwhile
+            if (predicate.test(entry.getValue()) && entries.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Frees a tenth of the cache, removing expired entries first, then the
+     * least recently used entries.
+     */
+    private void evict() {
+        if (!evictionLock.tryLock()) {
+            return;
+        }
+        try {
+            if (entries.size() <= maximumSize) {
+                return;
+            }
+            purgeExpired();
+
+            int excess = entries.size() - (maximumSize - maximumSize / 10);
+            if (excess <= 0) {
+                return;
+            }
+            // Access times are copied first, since lookups keep changing them
+            entries.entrySet().stream()
+                    .map(entry -> new Candidate<>(entry.getKey(), entry.getValue(), entry.getValue().lastAccessNanos))
+                    .sorted(Comparator.comparingLong(Candidate::lastAccessNanos))
+                    .limit(excess)
+                    .forEach(candidate -> entries.remove(candidate.key(), candidate.entry()));
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    private record Candidate<K, V>(K key, Entry<V> entry, long lastAccessNanos) {
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        /** Last time the entry was put or looked up, from System.nanoTime() */
+        volatile long lastAccessNanos = System.nanoTime();
+
+        Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+
+        boolean isExpired(long now) {
+            return expiresAtMillis <= now;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package fr.cytech.projetdevwebbackend.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+import java.util.function.ToLongFunction;
+
+/**
+ * A thread-safe cache bounded by the total weight of its values, such as
+ * their size in bytes.
+ * <p>
+ * Once the total weight goes over the maximum, the least recently used
+ * entries are evicted until it fits again. Values weighing more than the
+ * maximum entry weight are never cached.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public class WeightedLruCache<K, V> {
+
+    private final long maximumWeight;
+    private final long maximumEntryWeight;
+    private final ToLongFunction<? super V> weigher;
+
+    /** Entries in access order, least recently used first */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long weight;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param maximumWeight      the maximum total weight of the values
+     * @param maximumEntryWeight the maximum weight of a single value
+     * @param weigher            computes the weight of a value
+     */
+    public WeightedLruCache(long maximumWeight, long maximumEntryWeight, ToLongFunction<? super V> weigher) {
+        if (maximumWeight < 1 || maximumEntryWeight < 1) {
+            throw new IllegalArgumentException("Cache weight must be positive");
+        }
+        this.maximumWeight = maximumWeight;
+        this.maximumEntryWeight = Math.min(maximumEntryWeight, maximumWeight);
+        this.weigher = weigher;
+    }
+
+    /**
+     * Gets a value, if it is cached.
+     *
+     * @param key the key of the value
+     * @return the value, or empty if it isn't cached
+     */
+    public synchronized Optional<V> get(K key) {
+        Entry<V> entry = entries.get(key);
+        return entry == null ? Optional.empty() : Optional.of(entry.value());
+    }
+
+    /**
+     * Caches a value, evicting the least recently used ones if needed.
+     *
+     * @param key   the key of the value
+     * @param value the value to cache
+     * @return true if the value was cached, false if it weighs too much
+     */
+    public synchronized boolean put(K key, V value) {
+        long valueWeight = weigher.applyAsLong(value);
+        if (valueWeight > maximumEntryWeight) {
+            remove(key);
+            return false;
+        }
+
+        Entry<V> previous = entries.put(key, new Entry<>(value, valueWeight));
+        if (previous != null) {
+            weight -= previous.weight();
+        }
+        weight += valueWeight;
+
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (weight > maximumWeight && eldest.hasNext()) {
+            weight -= eldest.next().weight();
+            eldest.remove();
+        }
+        return true;
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param key the key of the value
+     */
+    public synchronized void remove(K key) {
+        Entry<V> entry = entries.remove(key);
+        if (entry != null) {
+            weight -= entry.weight();
+        }
+    }
+
+    /**
+     * Removes all the values.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * Gets the number of cached values.
+     *
+     * @return the number of entries
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Gets the total weight of the cached values.
+     *
+     * @return the total weight
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    private record Entry<V>(V value, long weight) {
+    }
+}
@@ -0,0 +1,17 @@
+package fr.cytech.projetdevwebbackend.util.services;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+
+/**
+ * A profile picture ready to be served, along with its validator.
+ *
+ * @param resource  The picture's content, only read when sent
+ * @param etag      Strong ETag, derived from the SHA-256 of the content
+ * @param mediaType Type of the image, detected from its first bytes
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+public record ProfilePicture(Resource resource, String etag, MediaType mediaType) {
+}
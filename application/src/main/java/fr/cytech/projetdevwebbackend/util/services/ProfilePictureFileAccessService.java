@@ -5,22 +5,65 @@
  */
 package fr.cytech.projetdevwebbackend.util.services;
 
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import javax.imageio.ImageIO;
 
 import org.slf4j.Logger;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 
 import fr.cytech.projetdevwebbackend.errors.types.FileError;
+import fr.cytech.projetdevwebbackend.util.ByteBufferResource;
 import fr.cytech.projetdevwebbackend.util.Either;
+import fr.cytech.projetdevwebbackend.util.WeightedLruCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
 
+/**
+ * Pictures are stored once per content, named after their SHA-256 and spread
+ * over two levels of directories by its first four characters, such as
+ * {@code ab/cd/abcd...}. Their variants are stored next to them. Users refer
+ * to their picture by its hash, so that identical pictures are only stored
+ * once, and stored pictures never change.
+ * <p>
+ * Files are written aside, synced to disk, then moved in place at once, so
+ * that readers never see a half written picture. Uploads are streamed to
+ * disk, hashed and checked as they are read, so that they never need to fit
+ * in memory.
+ */
 @Service
 public class ProfilePictureFileAccessService {
     private final Path path;
@@ -28,13 +71,99 @@ public class ProfilePictureFileAccessService {
     private ResourceLoader resourceLoader;
     private static final Logger logger = org.slf4j.LoggerFactory.getLogger(ProfilePictureFileAccessService.class);
 
+    private static final String CACHE_NAME = "avatars";
+
+    /** Memory used by a cache entry besides the picture itself */
+    private static final long CACHE_ENTRY_OVERHEAD = 256;
+
+    /** Pictures stored by user id, before they were stored by hash */
+    private static final Pattern LEGACY_FILE = Pattern.compile("(\\d+)(_\\d+\\.png)?");
+
+    /** Types of the pictures accepted for upload */
+    private static final Set<MediaType> UPLOAD_TYPES = Set.of(MediaType.IMAGE_PNG, MediaType.IMAGE_JPEG,
+            MediaType.IMAGE_GIF);
+    /** Bytes needed to detect the type of a picture */
+    private static final int HEADER_SIZE = 12;
+    private static final int UPLOAD_BUFFER_SIZE = 8192;
+
+    /**
+     * Recently served pictures, by hash and variant, including the default
+     * picture. Pictures are kept whole in memory, and only removed by
+     * {@link #delete(String)}, by {@link #storeVariant(String, int, byte[])}
+     * or when evicted.
+     */
+    private final WeightedLruCache<PictureKey, CachedPicture> cache;
+    private final long maximumCachedPictureSize;
+
+    /** Sizes of the square variants of each picture, in increasing order */
+    private final int[] variantSizes;
+
+    /** Guards the cache against caching a picture read before a change */
+    private final Object cacheLock = new Object();
+    private long storeCount;
+
+    private final Counter hits;
+    private final Counter misses;
+
+    /** Largest picture accepted for upload, in bytes */
+    private final long maximumUploadSize;
+
+    /** Guards the stored files against being deleted while in use */
+    private final Object filesLock = new Object();
+    /**
+     * Number of uploads of each picture not yet set as a user's picture,
+     * guarded by the files lock. Pictures aren't deleted while uploaded.
+     */
+    private final Map<String, Integer> pins = new HashMap<>();
+
+    /** The default picture, loaded once in direct memory */
+    private ByteBuffer defaultImage;
+    private ProfilePicture defaultPicture;
+    /** Variants of the default picture, by size */
+    private Map<Integer, ProfilePicture> defaultVariants;
+
     /**
      * Constructor for FileAccessService.
-     * 
-     * @param rootPath The root path for file access, below the root path
+     *
+     * @param rootPath          The root path for file access, below the root path
+     * @param cacheMaximumBytes Memory used by the cached pictures at most. A
+     *                          single picture is only cached below a sixteenth
+     *                          of it.
+     * @param variantSizes      Sizes of the square variants of each picture
+     * @param maximumUploadSize Largest picture accepted for upload, in bytes
+     * @param meterRegistry     Registry to publish the cache's metrics to
      */
     public ProfilePictureFileAccessService(@Value("${app.database.path.root}") String rootPath,
-            @Value("${app.database.path.profile-pictures}") String path) {
+            @Value("${app.database.path.profile-pictures}") String path,
+            @Value("${app.avatar-cache.maximum-size-bytes:67108864}") long cacheMaximumBytes,
+            @Value("${app.avatar.variant-sizes:32,64,128,512}") int[] variantSizes,
+            @Value("${app.avatar.maximum-upload-bytes:5242880}") long maximumUploadSize,
+            MeterRegistry meterRegistry) {
+        this.maximumUploadSize = maximumUploadSize;
+        this.variantSizes = Arrays.stream(variantSizes).filter(size -> size > 0).sorted().distinct().toArray();
+        this.maximumCachedPictureSize = cacheMaximumBytes / 16;
+        this.cache = new WeightedLruCache<>(cacheMaximumBytes, maximumCachedPictureSize + CACHE_ENTRY_OVERHEAD,
+                CachedPicture::weight);
+        this.hits = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "hit")
+                .description("Profile pictures served from memory")
+                .register(meterRegistry);
+        this.misses = Counter.builder("cache.gets")
+                .tag("cache", CACHE_NAME)
+                .tag("result", "miss")
+                .description("Profile pictures looked up on disk")
+                .register(meterRegistry);
+        Gauge.builder("cache.size", cache, WeightedLruCache::size)
+                .tag("cache", CACHE_NAME)
+                .description("Number of cached profile pictures")
+                .register(meterRegistry);
+        Gauge.builder("cache.weight", cache, WeightedLruCache::weight)
+                .tag("cache", CACHE_NAME)
+                .description("Bytes used by the cached profile pictures")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+
         this.path = Path.of(rootPath + path);
         // Create the directory if it doesn't exist
         try {
@@ -42,50 +171,523 @@ public class ProfilePictureFileAccessService {
         } catch (IOException e) {
             logger.error("Failed to create directory: " + this.path, e);
         }
+        deleteTemporaryFiles();
     }
 
     /**
-     * Gets the file from the specified path.
+     * Reads a picture whole.
+     *
+     * @param hash Hash of the picture, or null
+     * @return Either an error, or the picture, or nothing if there is no such
+     *         picture
      */
-    public Either<FileError, Optional<byte[]>> read(Long id) {
+    public Either<FileError, Optional<byte[]>> read(String hash) {
+        if (hash == null) {
+            return Either.right(Optional.empty());
+        }
         try {
-            Path file = path.resolve(id.toString());
-            if (Files.exists(file)) {
-                return Either.right(Optional.of(Files.readAllBytes(file)));
-            } else {
-                return Either.right(Optional.empty());
+            return Either.right(Optional.of(Files.readAllBytes(pictureFile(hash))));
+        } catch (NoSuchFileException e) {
+            return Either.right(Optional.empty());
+        } catch (IOException e) {
+            return Either.left(FileError.GENERAL_IO_ERROR);
+        }
+    }
+
+    /**
+     * Finds a picture, or the default picture if there is none.
+     * <p>
+     * The smallest variant at least as large as the requested size is served,
+     * or the whole picture if there is none yet. Recently served pictures are
+     * served from memory. Pictures too large to be cached are streamed from
+     * disk. As stored pictures never change, their hash is their ETag.
+     *
+     * @param hash Hash of the picture, or null for the default picture
+     * @param size Size the picture will be displayed at, or null for the
+     *             whole picture
+     */
+    public Either<FileError, ProfilePicture> find(String hash, Integer size) {
+        if (hash == null) {
+            return Either.right(getDefaultPicture(size));
+        }
+
+        PictureKey key = new PictureKey(hash, variantSize(size));
+        Optional<CachedPicture> cached = cache.get(key);
+        if (cached.isPresent()) {
+            hits.increment();
+            return Either.right(cached.get().picture());
+        }
+        misses.increment();
+
+        long storesBefore;
+        synchronized (cacheLock) {
+            storesBefore = storeCount;
+        }
+
+        CachedPicture loaded;
+        try {
+            loaded = load(key);
+        } catch (IOException e) {
+            return Either.left(FileError.GENERAL_IO_ERROR);
+        }
+
+        synchronized (cacheLock) {
+            // The picture may have been given a variant or deleted since
+            if (storeCount == storesBefore) {
+                cache.put(key, loaded);
+            }
+        }
+        return Either.right(loaded.picture());
+    }
+
+    /**
+     * Reads a variant, falling back to the whole picture, then to the default
+     * picture.
+     */
+    private CachedPicture load(PictureKey key) throws IOException {
+        if (key.size() != 0) {
+            try {
+                return load(variantFile(key.hash(), key.size()), key.hash() + "_" + key.size());
+            } catch (NoSuchFileException e) {
+                // Not generated yet, or larger than the picture itself
             }
+        }
+        try {
+            return load(pictureFile(key.hash()), key.hash());
+        } catch (NoSuchFileException e) {
+            // Shared, so only the entry itself is counted
+            return new CachedPicture(getDefaultPicture(key.size()), CACHE_ENTRY_OVERHEAD);
+        }
+    }
+
+    /**
+     * Reads a picture whole if it can be cached, or prepares to stream it
+     * otherwise. Pictures weighing more than the cache allows aren't cached.
+     */
+    private CachedPicture load(Path file, String etag) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        if (attributes.size() > maximumCachedPictureSize) {
+            byte[] header;
+            try (InputStream in = Files.newInputStream(file)) {
+                header = in.readNBytes(HEADER_SIZE);
+            }
+            return new CachedPicture(
+                    new ProfilePicture(new FileSystemResource(file), etag, detectMediaType(header)),
+                    CACHE_ENTRY_OVERHEAD + attributes.size());
+        }
+
+        byte[] bytes = Files.readAllBytes(file);
+        return new CachedPicture(new ProfilePicture(
+                new ByteBufferResource(ByteBuffer.wrap(bytes), file.getFileName().toString()), etag,
+                detectMediaType(bytes)), CACHE_ENTRY_OVERHEAD + bytes.length);
+    }
+
+    /**
+     * Streams a picture to disk, unless an identical one is already stored.
+     * <p>
+     * Only PNG, JPEG and GIF pictures are accepted, which is checked from
+     * their first bytes before reading the rest. Reading stops as soon as the
+     * picture goes over the maximum upload size. The picture is hashed as it
+     * is read, and checked once fully written, before being moved in place.
+     * <p>
+     * The stored picture isn't deleted until {@link #release(String)} is
+     * called, so that it can safely be set as a user's picture in the
+     * meantime.
+     *
+     * @param in    The picture, which is read but not closed
+     * @param check Further check of the written picture, returning an error
+     *              to reject it
+     * @return Either an error, or the hash of the picture
+     */
+    public Either<FileError, String> store(InputStream in, Function<Path, Optional<FileError>> check) {
+        MessageDigest digest = sha256();
+        Path temporaryFile = null;
+        try {
+            temporaryFile = Files.createTempFile(path, "upload-", ".tmp");
+            try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                byte[] buffer = new byte[UPLOAD_BUFFER_SIZE];
+                int count = in.readNBytes(buffer, 0, HEADER_SIZE);
+                if (!UPLOAD_TYPES.contains(detectMediaType(Arrays.copyOf(buffer, count)))) {
+                    return Either.left(FileError.INVALID_IMAGE);
+                }
+
+                long size = 0;
+                while (count > 0) {
+                    size += count;
+                    if (size > maximumUploadSize) {
+                        return Either.left(FileError.FILE_TOO_LARGE);
+                    }
+                    digest.update(buffer, 0, count);
+                    ByteBuffer chunk = ByteBuffer.wrap(buffer, 0, count);
+                    while (chunk.hasRemaining()) {
+                        channel.write(chunk);
+                    }
+                    count = in.read(buffer);
+                }
+                channel.force(true);
+            }
+
+            Optional<FileError> error = check.apply(temporaryFile);
+            if (error.isPresent()) {
+                return Either.left(error.get());
+            }
+
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path destinationFile = pictureFile(hash);
+            Files.createDirectories(destinationFile.getParent());
+            synchronized (filesLock) {
+                if (!Files.exists(destinationFile)) {
+                    logger.info("Storing file at: " + destinationFile);
+                    Files.move(temporaryFile, destinationFile, StandardCopyOption.ATOMIC_MOVE);
+                    syncDirectory(destinationFile.getParent());
+                }
+                pins.merge(hash, 1, Integer::sum);
+            }
+            return Either.right(hash);
         } catch (IOException e) {
+            logger.error("Failed to store uploaded file", e);
             return Either.left(FileError.GENERAL_IO_ERROR);
+        } finally {
+            deleteTemporaryFile(temporaryFile);
+        }
+    }
+
+    /**
+     * Allows a stored picture to be deleted again, once it is set as a user's
+     * picture or given up on.
+     *
+     * @param hash Hash of the picture, as returned by
+     *             {@link #store(InputStream, Function)}
+     */
+    public void release(String hash) {
+        synchronized (filesLock) {
+            pins.computeIfPresent(hash, (key, count) -> count == 1 ? null : count - 1);
         }
     }
 
     /**
-     * Stores the file in the specified path.
+     * Gets the file of a stored picture.
+     *
+     * @param hash Hash of the picture
+     */
+    public Path getFile(String hash) {
+        return pictureFile(hash);
+    }
+
+    /**
+     * Checks whether a picture is stored.
+     *
+     * @param hash Hash of the picture
+     */
+    public boolean exists(String hash) {
+        return Files.exists(pictureFile(hash));
+    }
+
+    /**
+     * Stores a variant of a picture.
+     *
+     * @param hash  Hash of the picture
+     * @param size  Size of the variant
+     * @param bytes The encoded variant
+     * @return An error, if the variant couldn't be stored
      */
-    public Optional<FileError> store(Long id, byte[] bytes) {
+    public Optional<FileError> storeVariant(String hash, int size, byte[] bytes) {
+        Path temporaryFile = null;
         try {
-            Path destinationFile = this.path.resolve(id.toString())
-                    .normalize().toAbsolutePath();
-            logger.info("Storing file at: " + destinationFile);
-            Files.copy(new ByteArrayInputStream(bytes), destinationFile,
-                    java.nio.file.StandardCopyOption.REPLACE_EXISTING);
+            temporaryFile = writeTemporaryFile(bytes);
+            synchronized (filesLock) {
+                // Variants of a deleted picture would never be deleted
+                if (!Files.exists(pictureFile(hash))) {
+                    return Optional.empty();
+                }
+                Files.move(temporaryFile, variantFile(hash, size), StandardCopyOption.ATOMIC_MOVE);
+                syncDirectory(pictureFile(hash).getParent());
+            }
+            synchronized (cacheLock) {
+                storeCount++;
+                cache.remove(new PictureKey(hash, size));
+            }
             return Optional.empty();
         } catch (IOException e) {
+            logger.error("Failed to store variant " + size + " of " + hash, e);
             return Optional.of(FileError.GENERAL_IO_ERROR);
+        } finally {
+            deleteTemporaryFile(temporaryFile);
         }
     }
 
     /**
-     * Gets the default profile picture (stored under resources/default_user.png);
+     * Checks whether a variant of a picture is stored.
+     *
+     * @param hash Hash of the picture
+     * @param size Size of the variant
      */
-    public byte[] getDefaultImage() {
+    public boolean hasVariant(String hash, int size) {
+        return Files.exists(variantFile(hash, size));
+    }
+
+    /**
+     * Deletes a picture and its variants, unless it is being uploaded again.
+     *
+     * @param hash Hash of the picture
+     * @return An error, if the picture couldn't be deleted
+     */
+    public Optional<FileError> delete(String hash) {
+        try {
+            synchronized (filesLock) {
+                if (pins.containsKey(hash)) {
+                    return Optional.empty();
+                }
+                synchronized (cacheLock) {
+                    storeCount++;
+                    cache.remove(new PictureKey(hash, 0));
+                    for (int size : variantSizes) {
+                        cache.remove(new PictureKey(hash, size));
+                    }
+                }
+                logger.info("Deleting file: " + pictureFile(hash));
+                for (int size : variantSizes) {
+                    Files.deleteIfExists(variantFile(hash, size));
+                }
+                Files.deleteIfExists(pictureFile(hash));
+            }
+            return Optional.empty();
+        } catch (IOException e) {
+            return Optional.of(FileError.GENERAL_IO_ERROR);
+        }
+    }
+
+    /**
+     * Writes a file aside and syncs it to disk, to be moved in place.
+     */
+    private Path writeTemporaryFile(byte[] bytes) throws IOException {
+        Path temporaryFile = Files.createTempFile(path, "upload-", ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        return temporaryFile;
+    }
+
+    private static void deleteTemporaryFile(Path temporaryFile) {
+        if (temporaryFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(temporaryFile);
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary file: " + temporaryFile, e);
+        }
+    }
+
+    /**
+     * Syncs a directory, so that a file moved into it survives a crash. Not
+     * every platform allows it.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            logger.debug("Failed to sync directory: " + directory, e);
+        }
+    }
+
+    /**
+     * Deletes the files left over by writes interrupted by a crash.
+     */
+    private void deleteTemporaryFiles() {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path, "upload-*.tmp")) {
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to delete temporary files in: " + path, e);
+        }
+    }
+
+    /**
+     * Lists the users whose picture is still stored under their id.
+     *
+     * @return The ids of the users
+     */
+    public List<Long> findLegacyPictureIds() {
+        List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(path)) {
+            for (Path file : files) {
+                Matcher matcher = LEGACY_FILE.matcher(file.getFileName().toString());
+                if (matcher.matches() && matcher.group(2) == null) {
+                    ids.add(Long.valueOf(matcher.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Failed to list files in: " + path, e);
+        }
+        return ids;
+    }
+
+    /**
+     * Opens a picture stored under a user's id.
+     *
+     * @param id Id of the user
+     * @return Either an error, or the picture, to be closed by the caller
+     */
+    public Either<FileError, InputStream> openLegacy(Long id) {
+        try {
+            return Either.right(Files.newInputStream(path.resolve(id.toString())));
+        } catch (IOException e) {
+            return Either.left(FileError.GENERAL_IO_ERROR);
+        }
+    }
+
+    /**
+     * Deletes a picture stored under a user's id, along with its variants.
+     *
+     * @param id Id of the user
+     * @return An error, if the picture couldn't be deleted
+     */
+    public Optional<FileError> deleteLegacy(Long id) {
+        try {
+            for (int size : variantSizes) {
+                Files.deleteIfExists(path.resolve(id + "_" + size + ".png"));
+            }
+            Files.deleteIfExists(path.resolve(id.toString()));
+            return Optional.empty();
+        } catch (IOException e) {
+            return Optional.of(FileError.GENERAL_IO_ERROR);
+        }
+    }
+
+    /**
+     * Gets the sizes of the square variants of each picture, in increasing
+     * order.
+     */
+    public int[] getVariantSizes() {
+        return variantSizes.clone();
+    }
+
+    /**
+     * Gets the variant to serve for a display size: the smallest one at least
+     * as large, or 0 for the whole picture.
+     */
+    private int variantSize(Integer size) {
+        if (size == null || size <= 0) {
+            return 0;
+        }
+        for (int variantSize : variantSizes) {
+            if (variantSize >= size) {
+                return variantSize;
+            }
+        }
+        return 0;
+    }
+
+    private Path pictureFile(String hash) {
+        return path.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private Path variantFile(String hash, int size) {
+        return pictureFile(hash).resolveSibling(hash + "_" + size + ".png");
+    }
+
+    /**
+     * Loads the default profile picture (stored under
+     * resources/default_user.png) once, in a read-only direct buffer shared by
+     * every response.
+     */
+    @PostConstruct
+    public void loadDefaultImage() {
         try {
             Resource resource = resourceLoader.getResource("classpath:default_user.png");
-            return resource.getInputStream().readAllBytes();
+            byte[] bytes = resource.getInputStream().readAllBytes();
+            defaultImage = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip().asReadOnlyBuffer();
+            defaultPicture = new ProfilePicture(new ByteBufferResource(defaultImage, "default profile picture"),
+                    HexFormat.of().formatHex(sha256().digest(bytes)), detectMediaType(bytes));
+
+            BufferedImage image = ImageIO.read(new ByteArrayInputStream(bytes));
+            Map<Integer, ProfilePicture> variants = new HashMap<>();
+            for (int size : variantSizes) {
+                if (size <= Math.min(image.getWidth(), image.getHeight())) {
+                    byte[] variant = ProfilePictureVariantService.render(image, size);
+                    variants.put(size, new ProfilePicture(
+                            new ByteBufferResource(ByteBuffer.wrap(variant), "default profile picture " + size),
+                            HexFormat.of().formatHex(sha256().digest(variant)), MediaType.IMAGE_PNG));
+                }
+            }
+            defaultVariants = Map.copyOf(variants);
         } catch (IOException e) {
-            System.err.println("Error reading default image file: " + e.getMessage());
-            throw new RuntimeException("Failed to read default image file", e);
+            throw new IllegalStateException("Failed to read default image file", e);
+        }
+    }
+
+    /**
+     * Gets a copy of the default profile picture.
+     */
+    public byte[] getDefaultImage() {
+        byte[] bytes = new byte[defaultImage.remaining()];
+        defaultImage.duplicate().get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Gets the default profile picture, served from memory.
+     *
+     * @param size Size the picture will be displayed at, or null for the
+     *             whole picture
+     */
+    public ProfilePicture getDefaultPicture(Integer size) {
+        return defaultVariants.getOrDefault(variantSize(size), defaultPicture);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Detects the type of an image from its first bytes.
+     */
+    private static MediaType detectMediaType(byte[] header) {
+        if (startsWith(header, 0x89, 'P', 'N', 'G')) {
+            return MediaType.IMAGE_PNG;
+        } else if (startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return MediaType.IMAGE_JPEG;
+        } else if (startsWith(header, 'G', 'I', 'F', '8')) {
+            return MediaType.IMAGE_GIF;
+        } else if (header.length >= 12 && startsWith(header, 'R', 'I', 'F', 'F')
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return MediaType.parseMediaType("image/webp");
+        }
+        return MediaType.APPLICATION_OCTET_STREAM;
+    }
+
+    private static boolean startsWith(byte[] bytes, int... prefix) {
+        if (bytes.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((bytes[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    /**
+     * A cached picture, and the memory it uses.
+     */
+    private record CachedPicture(ProfilePicture picture, long weight) {
+    }
+
+    /**
+     * A picture's hash, and the size of its variant, or 0 for the whole
+     * picture.
+     */
+    private record PictureKey(String hash, int size) {
     }
 }
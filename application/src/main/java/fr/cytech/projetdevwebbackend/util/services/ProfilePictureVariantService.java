@@ -0,0 +1,269 @@
+package fr.cytech.projetdevwebbackend.util.services;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import fr.cytech.projetdevwebbackend.errors.types.FileError;
+import fr.cytech.projetdevwebbackend.util.Either;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Validates uploaded profile pictures and generates their resized variants.
+ * <p>
+ * Uploads are checked on the request thread from their headers alone, which
+ * rejects anything that isn't a PNG, JPEG or GIF image of reasonable
+ * dimensions. They are then decoded once, cropped to a square and scaled to
+ * each of the variant sizes on a single background thread, so that small
+ * avatars don't cost clients the full picture, and that a single picture is
+ * decoded in memory at a time. Variants are written as PNG, as ImageIO has no
+ * WebP writer.
+ * <p>
+ * As pictures are stored by content, variants already stored for an
+ * identical picture are reused. Until its variants are stored, a picture is
+ * served whole. Generation times are published as
+ * {@code avatar.variants.duration}, and uploads whose variants were skipped
+ * because the queue was full as {@code avatar.variants.rejected}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Service
+@Slf4j
+public class ProfilePictureVariantService {
+
+    private static final Set<String> SUPPORTED_FORMATS = Set.of("png", "jpeg", "gif");
+
+    private final ProfilePictureFileAccessService fileAccessService;
+    private final int maximumDimension;
+    private final ThreadPoolExecutor executor;
+
+    private final Timer duration;
+    private final Counter rejected;
+
+    /**
+     * Creates the service and starts its thread.
+     *
+     * @param fileAccessService Service storing the variants
+     * @param meterRegistry     Registry to publish the service's metrics to
+     * @param maximumDimension  Largest width or height accepted for uploads
+     * @param queueCapacity     Maximum number of pictures waiting for their
+     *                          variants
+     */
+    @Autowired
+    public ProfilePictureVariantService(ProfilePictureFileAccessService fileAccessService,
+            MeterRegistry meterRegistry,
+            @Value("${app.avatar.maximum-dimension:4096}") int maximumDimension,
+            @Value("${app.avatar.variant-queue-capacity:100}") int queueCapacity) {
+        this.fileAccessService = fileAccessService;
+        this.maximumDimension = maximumDimension;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "avatar-variants");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.AbortPolicy());
+
+        Gauge.builder("avatar.variants.queue.size", executor, pool -> pool.getQueue().size())
+                .description("Profile pictures waiting for their variants")
+                .register(meterRegistry);
+        this.duration = Timer.builder("avatar.variants.duration")
+                .description("Time spent generating the variants of a profile picture")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("avatar.variants.rejected")
+                .description("Profile pictures whose variants were skipped because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks the format and dimensions of an uploaded picture, without
+     * decoding its pixels.
+     *
+     * @param file The uploaded picture
+     * @return An error, if the picture is rejected
+     */
+    public Optional<FileError> check(Path file) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Either<FileError, ImageReader> reader = openReader(input);
+            if (reader.isLeft()) {
+                return Optional.of(reader.getLeft());
+            }
+            reader.getRight().dispose();
+            return Optional.empty();
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to read uploaded picture: {}", e.getMessage());
+            return Optional.of(FileError.INVALID_IMAGE);
+        }
+    }
+
+    /**
+     * Decodes a stored picture.
+     *
+     * @param file The picture
+     * @return Either an error, or the decoded image
+     */
+    private Either<FileError, BufferedImage> decode(Path file) {
+        try (ImageInputStream input = ImageIO.createImageInputStream(file.toFile())) {
+            Either<FileError, ImageReader> reader = openReader(input);
+            if (reader.isLeft()) {
+                return Either.left(reader.getLeft());
+            }
+            try {
+                return Either.right(reader.getRight().read(0));
+            } finally {
+                reader.getRight().dispose();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to decode picture {}: {}", file.getFileName(), e.getMessage());
+            return Either.left(FileError.INVALID_IMAGE);
+        }
+    }
+
+    /**
+     * Finds a reader for a picture, checking its format and dimensions.
+     *
+     * @return Either an error, or the reader, to be disposed by the caller
+     */
+    private Either<FileError, ImageReader> openReader(ImageInputStream input) throws IOException {
+        if (input == null) {
+            return Either.left(FileError.INVALID_IMAGE);
+        }
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            return Either.left(FileError.INVALID_IMAGE);
+        }
+        ImageReader reader = readers.next();
+        try {
+            if (!SUPPORTED_FORMATS.contains(reader.getFormatName().toLowerCase(Locale.ROOT))) {
+                reader.dispose();
+                return Either.left(FileError.INVALID_IMAGE);
+            }
+            reader.setInput(input, true, true);
+            if (reader.getWidth(0) > maximumDimension || reader.getHeight(0) > maximumDimension) {
+                reader.dispose();
+                return Either.left(FileError.IMAGE_TOO_LARGE);
+            }
+            return Either.right(reader);
+        } catch (IOException | RuntimeException e) {
+            reader.dispose();
+            throw e;
+        }
+    }
+
+    /**
+     * Generates and stores the missing variants of a stored picture in the
+     * background.
+     *
+     * @param hash Hash of the picture
+     */
+    public void generate(String hash) {
+        try {
+            executor.execute(() -> duration.record(() -> storeVariants(hash)));
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            log.warn("Skipped variants of picture {}: queue is full", hash);
+        }
+    }
+
+    private void storeVariants(String hash) {
+        int[] missing = Arrays.stream(fileAccessService.getVariantSizes())
+                .filter(size -> !fileAccessService.hasVariant(hash, size))
+                .toArray();
+        // Deleted since, or identical to a picture already given its variants
+        if (missing.length == 0 || !fileAccessService.exists(hash)) {
+            return;
+        }
+
+        Either<FileError, BufferedImage> decoded = decode(fileAccessService.getFile(hash));
+        if (decoded.isLeft()) {
+            log.error("Failed to generate variants of picture {}: {}", hash, decoded.getLeft().getMessage());
+            return;
+        }
+        BufferedImage image = decoded.getRight();
+        for (int size : missing) {
+            if (size > Math.min(image.getWidth(), image.getHeight())) {
+                // The picture itself is smaller, and is served instead
+                continue;
+            }
+            try {
+                fileAccessService.storeVariant(hash, size, render(image, size))
+                        .ifPresent(error -> log.error("Failed to store variant {} of picture {}: {}", size, hash,
+                                error.getMessage()));
+            } catch (IOException | RuntimeException e) {
+                log.error("Failed to generate variant {} of picture {}", size, hash, e);
+            }
+        }
+    }
+
+    /**
+     * Crops an image to a centered square and scales it down to a PNG of the
+     * given size.
+     * <p>
+     * The image is halved in steps until close to the size, as a single
+     * bilinear pass would skip most of the source pixels.
+     *
+     * @param image The image, at least as large as the size
+     * @param size  Width and height of the variant
+     * @return The encoded variant
+     * @throws IOException If the variant can't be encoded
+     */
+    public static byte[] render(BufferedImage image, int size) throws IOException {
+        int side = Math.min(image.getWidth(), image.getHeight());
+        BufferedImage current = image.getSubimage((image.getWidth() - side) / 2, (image.getHeight() - side) / 2,
+                side, side);
+        do {
+            int next = Math.max(size, current.getWidth() / 2);
+            current = scale(current, next);
+        } while (current.getWidth() > size);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(current, "png", out);
+        return out.toByteArray();
+    }
+
+    private static BufferedImage scale(BufferedImage image, int size) {
+        BufferedImage scaled = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D graphics = scaled.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(image, 0, 0, size, size, null);
+        } finally {
+            graphics.dispose();
+        }
+        return scaled;
+    }
+
+    /**
+     * Stops accepting pictures, letting the queued ones finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
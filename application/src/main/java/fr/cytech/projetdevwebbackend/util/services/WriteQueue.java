@@ -0,0 +1,249 @@
+package fr.cytech.projetdevwebbackend.util.services;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Single writer thread running database writes in batched transactions.
+ * <p>
+ * SQLite only lets one connection write at a time, and every commit syncs the
+ * database to disk. Rather than having each request run its own write
+ * transaction and wait for the lock, writes are submitted to a queue, and a
+ * single thread runs the writes submitted within a short window together in
+ * one transaction. Each caller still gets its own result.
+ * <p>
+ * If any write of a batch fails, the batch is rolled back and its writes are
+ * run again in a transaction each, so that one failing write never fails the
+ * others. Writes must therefore be safe to run again after a rollback.
+ * <p>
+ * Writes submitted from inside a transaction run directly in that
+ * transaction instead: the caller may hold the writer connection, which the
+ * writer thread would wait for. Read-only transactions run on a read-only
+ * connection, and can't submit writes at all.
+ * <p>
+ * The number of waiting writes is published as the
+ * {@code write.queue.size} metric, the batch sizes as
+ * {@code write.queue.batch.size} and the transaction durations as
+ * {@code write.queue.batch.duration}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Component
+@Slf4j
+public class WriteQueue {
+
+    /** How often the writer checks for shutdown while idle */
+    private static final long IDLE_POLL_MILLISECONDS = 100;
+
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Command<?>> queue;
+    private final long batchWindowNanos;
+    private final int maxBatchSize;
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    private final DistributionSummary batchSize;
+    private final Timer batchDuration;
+
+    /**
+     * Creates the queue and starts the writer thread.
+     *
+     * @param transactionManager Manager of the write transactions
+     * @param meterRegistry      Registry to publish the queue's metrics to
+     * @param batchWindow        Time to wait for more writes after the first
+     *                           one of a batch, in milliseconds
+     * @param maxBatchSize       Maximum number of writes in one transaction
+     * @param capacity           Maximum number of writes waiting for the
+     *                           writer
+     */
+    @Autowired
+    public WriteQueue(PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+            @Value("${app.write-queue.batch-window-milliseconds:2}") long batchWindow,
+            @Value("${app.write-queue.max-batch-size:64}") int maxBatchSize,
+            @Value("${app.write-queue.capacity:1000}") int capacity) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchWindowNanos = TimeUnit.MILLISECONDS.toNanos(batchWindow);
+        this.maxBatchSize = maxBatchSize;
+
+        Gauge.builder("write.queue.size", queue, BlockingQueue::size)
+                .description("Writes waiting for the writer thread")
+                .register(meterRegistry);
+        this.batchSize = DistributionSummary.builder("write.queue.batch.size")
+                .description("Writes run in a single transaction")
+                .register(meterRegistry);
+        this.batchDuration = Timer.builder("write.queue.batch.duration")
+                .description("Time spent running a batch of writes")
+                .register(meterRegistry);
+
+        this.writer = new Thread(this::run, "write-queue");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Submits a write to the writer thread.
+     *
+     * @param write The write to run, inside a transaction
+     * @return A future completed with the result of the write once it is
+     *         committed
+     * @throws RejectedExecutionException If too many writes are waiting
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> write) {
+        Command<T> command = new Command<>(write, new CompletableFuture<>());
+        if (!running || !queue.offer(command)) {
+            throw new RejectedExecutionException("Too many pending writes");
+        }
+        return command.result();
+    }
+
+    /**
+     * Runs a write on the writer thread and waits for it to be committed.
+     * <p>
+     * Inside a write transaction, or on the writer thread itself, the write
+     * runs directly instead.
+     *
+     * @param write The write to run, inside a transaction
+     * @return The result of the write
+     * @throws RejectedExecutionException If too many writes are waiting
+     * @throws IllegalStateException      If called from a read-only transaction
+     */
+    public <T> T execute(Supplier<T> write) {
+        if (Thread.currentThread() == writer) {
+            return write.get();
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                throw new IllegalStateException("Can't write from a read-only transaction");
+            }
+            return write.get();
+        }
+
+        try {
+            return submit(write).join();
+        } catch (CompletionException e) {
+            // Rethrow what the write threw, as if it ran on this thread
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Stops accepting writes, and waits for the waiting ones to be run.
+     *
+     * @throws InterruptedException If interrupted while waiting
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(30));
+    }
+
+    private void run() {
+        List<Command<?>> batch = new ArrayList<>(maxBatchSize);
+        // Keeps running after shutdown until the queue is drained
+        while (running || !queue.isEmpty()) {
+            try {
+                Command<?> first = queue.poll(IDLE_POLL_MILLISECONDS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + batchWindowNanos;
+                while (batch.size() < maxBatchSize) {
+                    Command<?> next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            }
+
+            if (!batch.isEmpty()) {
+                runBatch(batch);
+                batch.clear();
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+        }
+
+        // Only left over if the writer was interrupted
+        for (Command<?> left = queue.poll(); left != null; left = queue.poll()) {
+            left.result().completeExceptionally(new RejectedExecutionException("Write queue stopped"));
+        }
+        log.debug("Write queue stopped");
+    }
+
+    private void runBatch(List<Command<?>> batch) {
+        batchSize.record(batch.size());
+        List<Object> results = new ArrayList<>(batch.size());
+        try {
+            batchDuration.record(() -> transactionTemplate.executeWithoutResult(status -> {
+                for (Command<?> command : batch) {
+                    results.add(command.write().get());
+                }
+            }));
+        } catch (RuntimeException | Error e) {
+            if (batch.size() > 1) {
+                log.debug("Batch of {} writes failed, running them one by one: {}", batch.size(), e.getMessage());
+                batch.forEach(this::runAlone);
+            } else {
+                batch.get(0).result().completeExceptionally(e);
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).complete(results.get(i));
+        }
+    }
+
+    private void runAlone(Command<?> command) {
+        try {
+            command.complete(transactionTemplate.execute(status -> command.write().get()));
+        } catch (RuntimeException | Error e) {
+            command.result().completeExceptionally(e);
+        }
+    }
+
+    /**
+     * A write, and the future of its result.
+     */
+    private record Command<T>(Supplier<T> write, CompletableFuture<T> result) {
+        @SuppressWarnings("unchecked")
+        void complete(Object value) {
+            result.complete((T) value);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+-- Full-text index over announcements, queried by AnnouncementRepository.search.
+-- External content table: the text lives in announcements only, the index is
+-- kept in sync by the triggers below.
+CREATE VIRTUAL TABLE announcements_fts USING fts5(
+    title,
+    body,
+    tags,
+    content = 'announcements',
+    content_rowid = 'id',
+    tokenize = 'unicode61 remove_diacritics 2',
+    -- Speeds up short prefix queries, which every search is
+    prefix = '2 3'
+);
+
+CREATE TRIGGER announcements_fts_insert AFTER INSERT ON announcements BEGIN
+    INSERT INTO announcements_fts (rowid, title, body, tags)
+    VALUES (new.id, new.title, new.body, new.tags);
+END;
+
+CREATE TRIGGER announcements_fts_delete AFTER DELETE ON announcements BEGIN
+    INSERT INTO announcements_fts (announcements_fts, rowid, title, body, tags)
+    VALUES ('delete', old.id, old.title, old.body, old.tags);
+END;
+
+CREATE TRIGGER announcements_fts_update AFTER UPDATE OF title, body, tags ON announcements BEGIN
+    INSERT INTO announcements_fts (announcements_fts, rowid, title, body, tags)
+    VALUES ('delete', old.id, old.title, old.body, old.tags);
+    INSERT INTO announcements_fts (rowid, title, body, tags)
+    VALUES (new.id, new.title, new.body, new.tags);
+END;
+
+-- Index existing announcements
+INSERT INTO announcements_fts (announcements_fts) VALUES ('rebuild');
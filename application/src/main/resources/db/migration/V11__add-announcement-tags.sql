@@ -0,0 +1,75 @@
+-- Normalized announcement tags, one row per tag.
+CREATE TABLE announcement_tags (
+    announcement_id INTEGER NOT NULL,
+    tag TEXT NOT NULL,
+    PRIMARY KEY (announcement_id, tag),
+    FOREIGN KEY (announcement_id) REFERENCES announcements(id) ON DELETE CASCADE
+);
+
+-- Tag filtering and faceting
+CREATE INDEX idx_announcement_tags_tag ON announcement_tags(tag, announcement_id);
+
+-- Split the existing comma separated tags
+WITH RECURSIVE split(announcement_id, tag, rest) AS (
+    SELECT id, '', tags || ',' FROM announcements
+    UNION ALL
+    SELECT announcement_id,
+        TRIM(substr(rest, 1, instr(rest, ',') - 1)),
+        substr(rest, instr(rest, ',') + 1)
+    FROM split
+    WHERE rest <> ''
+)
+INSERT OR IGNORE INTO announcement_tags (announcement_id, tag)
+SELECT announcement_id, tag FROM split WHERE tag <> '';
+
+-- The full-text index can no longer read the tags from the announcements, so
+-- it now stores its own copy of the indexed text.
+DROP TRIGGER announcements_fts_insert;
+DROP TRIGGER announcements_fts_delete;
+DROP TRIGGER announcements_fts_update;
+DROP TABLE announcements_fts;
+
+CREATE VIRTUAL TABLE announcements_fts USING fts5(
+    title,
+    body,
+    tags,
+    tokenize = 'unicode61 remove_diacritics 2',
+    prefix = '2 3'
+);
+
+INSERT INTO announcements_fts (rowid, title, body, tags)
+SELECT a.id, a.title, a.body,
+    (SELECT group_concat(t.tag, ' ') FROM announcement_tags t WHERE t.announcement_id = a.id)
+FROM announcements a;
+
+CREATE TRIGGER announcements_fts_insert AFTER INSERT ON announcements BEGIN
+    INSERT INTO announcements_fts (rowid, title, body, tags)
+    VALUES (new.id, new.title, new.body,
+        (SELECT group_concat(t.tag, ' ') FROM announcement_tags t WHERE t.announcement_id = new.id));
+END;
+
+CREATE TRIGGER announcements_fts_update AFTER UPDATE OF title, body ON announcements BEGIN
+    UPDATE announcements_fts SET title = new.title, body = new.body WHERE rowid = new.id;
+END;
+
+CREATE TRIGGER announcements_fts_delete AFTER DELETE ON announcements BEGIN
+    DELETE FROM announcements_fts WHERE rowid = old.id;
+END;
+
+CREATE TRIGGER announcement_tags_fts_insert AFTER INSERT ON announcement_tags BEGIN
+    UPDATE announcements_fts
+    SET tags = (SELECT group_concat(t.tag, ' ') FROM announcement_tags t
+        WHERE t.announcement_id = new.announcement_id)
+    WHERE rowid = new.announcement_id;
+END;
+
+CREATE TRIGGER announcement_tags_fts_delete AFTER DELETE ON announcement_tags BEGIN
+    UPDATE announcements_fts
+    SET tags = (SELECT group_concat(t.tag, ' ') FROM announcement_tags t
+        WHERE t.announcement_id = old.announcement_id)
+    WHERE rowid = old.announcement_id;
+END;
+
+-- Tags were never JSON, and are no longer stored in the announcements
+DELETE FROM json_index WHERE entity_type = 'Announcement';
+ALTER TABLE announcements DROP COLUMN tags;
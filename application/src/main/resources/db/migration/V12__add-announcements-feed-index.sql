@@ -0,0 +1,2 @@
+-- Keyset pagination of the announcement feed, newest first
+CREATE INDEX idx_announcements_updated_at ON announcements(updated_at, id);
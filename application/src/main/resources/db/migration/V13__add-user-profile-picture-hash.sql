@@ -0,0 +1,5 @@
+-- Profile pictures are stored once per content, under their SHA-256
+ALTER TABLE users ADD COLUMN profile_picture_hash TEXT;
+
+-- Pictures are deleted once no user refers to them anymore
+CREATE INDEX idx_users_profile_picture_hash ON users(profile_picture_hash);
@@ -0,0 +1,36 @@
+-- Inverted index over @JsonColumn fields, one row per JSON node.
+-- Kept in sync by JsonIndexListener, queried by JsonQueryGenerator.
+CREATE TABLE json_index (
+    id INTEGER PRIMARY KEY AUTOINCREMENT,
+    entity_type TEXT NOT NULL,
+    entity_id INTEGER NOT NULL,
+    field TEXT NOT NULL,
+    path TEXT NOT NULL,
+    -- NULL for the root node and array elements
+    key TEXT,
+    value_type TEXT NOT NULL,
+    -- Scalar values only, NULL for objects and arrays
+    value_text TEXT,
+    value_norm TEXT,
+    value_num REAL
+);
+
+CREATE INDEX idx_json_index_key_value ON json_index(entity_type, key, value_text, entity_id);
+CREATE INDEX idx_json_index_value_norm ON json_index(entity_type, value_norm, entity_id);
+CREATE INDEX idx_json_index_entity ON json_index(entity_type, entity_id, field);
+
+-- Backfill existing devices
+INSERT INTO json_index (entity_type, entity_id, field, path, key, value_type, value_text, value_norm, value_num)
+SELECT 'Device', d.id, 'properties', j.fullkey,
+    CASE WHEN typeof(j.key) = 'text' THEN j.key END,
+    j.type,
+    CASE WHEN j.type IN ('object', 'array') THEN NULL
+        WHEN j.type IN ('true', 'false', 'null') THEN j.type
+        ELSE CAST(j.atom AS TEXT) END,
+    CASE WHEN j.type IN ('object', 'array') THEN NULL
+        WHEN j.type IN ('true', 'false', 'null') THEN j.type
+        ELSE LOWER(CAST(j.atom AS TEXT)) END,
+    CASE WHEN j.type IN ('integer', 'real') THEN j.atom END
+FROM devices d,
+    json_tree(CASE WHEN json_valid(d.properties) THEN d.properties ELSE '{}' END) j
+WHERE json_valid(d.properties);
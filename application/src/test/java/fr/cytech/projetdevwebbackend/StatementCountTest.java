@@ -0,0 +1,171 @@
+package fr.cytech.projetdevwebbackend;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.MediaType;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import fr.cytech.projetdevwebbackend.announcements.model.Announcement;
+import fr.cytech.projetdevwebbackend.announcements.service.AnnouncementService;
+import fr.cytech.projetdevwebbackend.users.dto.LoginDto;
+import fr.cytech.projetdevwebbackend.users.model.Role;
+import fr.cytech.projetdevwebbackend.users.model.User;
+import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
+import fr.cytech.projetdevwebbackend.users.service.AuthService;
+import fr.cytech.projetdevwebbackend.users.service.UserAdministrationService;
+import fr.cytech.projetdevwebbackend.users.service.UserChangedEvent;
+import fr.cytech.projetdevwebbackend.users.service.UserDetailsProvider;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Counts the statements run by the busiest request paths, so that N+1
+ * queries and eager loading don't come back unnoticed.
+ * <p>
+ * Runs the whole application against a new database in a temporary
+ * directory, with the admin account created on startup.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.log=false" })
+@AutoConfigureMockMvc
+class StatementCountTest {
+
+    private static final String ADMIN_USERNAME = "admin";
+    private static final String ADMIN_PASSWORD = "admin123";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AnnouncementService announcementService;
+
+    @Autowired
+    private UserAdministrationService userAdministrationService;
+
+    @Autowired
+    private UserDetailsProvider customUserDetailsService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private static Path directory;
+
+    private Statistics statistics;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("statement-count");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + directory.resolve("DATABASE.db"));
+        registry.add("app.database.path.root", () -> directory.resolve("database").toString());
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    void announcementGetLoadsTheAnnouncementInOneStatement() throws Exception {
+        User admin = userRepository.findByUsername(ADMIN_USERNAME).orElseThrow();
+        Announcement announcement = announcementService.createAnnouncement("Title", "Body",
+                List.of("first", "second"), admin, Set.of(Role.ROLE_ADMIN), false);
+        String token = authService.login(LoginDto.of(ADMIN_USERNAME, ADMIN_PASSWORD)).getRight().getAccessToken();
+
+        // Caches the admin's details for the authentication filter
+        getAnnouncement(token, announcement.getId()).andExpect(status().isOk());
+
+        statistics.clear();
+        getAnnouncement(token, announcement.getId())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.posterUsername").value(ADMIN_USERNAME))
+                .andExpect(jsonPath("$.tags.length()").value(2))
+                .andExpect(jsonPath("$.roleRestrictions[0]").value(Role.ROLE_ADMIN));
+
+        // Current user, visibility check, then the announcement with its
+        // poster, tags and restrictions
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+        assertEquals(0, statistics.getEntityFetchCount());
+    }
+
+    @Test
+    void authenticationLoadsTheUserWithItsRolesInOneStatement() {
+        eventPublisher.publishEvent(new UserChangedEvent(ADMIN_USERNAME, UserChangedEvent.Change.UPDATED));
+
+        statistics.clear();
+        UserDetails details = customUserDetailsService.findUserDetails(ADMIN_USERNAME).getRight();
+        assertTrue(details.getAuthorities().stream()
+                .anyMatch(authority -> authority.getAuthority().equals(Role.ROLE_ADMIN)));
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+
+        // Then served from the cache
+        statistics.clear();
+        customUserDetailsService.findUserDetails(ADMIN_USERNAME);
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void scoreCheckOnlyReadsTheScore() {
+        statistics.clear();
+        userAdministrationService.getUserScore(ADMIN_USERNAME);
+
+        // User id, then its score, without loading the user or its roles
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getCollectionFetchCount());
+    }
+
+    private ResultActions getAnnouncement(String token, Long id) throws Exception {
+        return mockMvc.perform(post("/api/announcements/get")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"id\":" + id + "}"));
+    }
+}
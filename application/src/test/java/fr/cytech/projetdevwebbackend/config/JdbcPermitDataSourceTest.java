@@ -0,0 +1,197 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.mock.env.MockEnvironment;
+import org.sqlite.SQLiteDataSource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tests the permits of {@link JdbcPermitDataSource}, the post processor of
+ * {@link VirtualThreadConfig} installing it, and runs the same load on
+ * platform threads and on virtual threads. Both loads log the time they took,
+ * the virtual one only runs on Java 21 or later.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Slf4j
+class JdbcPermitDataSourceTest {
+
+    private static final long TIMEOUT_MILLIS = 100;
+
+    private static final int LOAD_PERMITS = 4;
+    private static final int LOAD_QUERIES = 2000;
+    private static final int PLATFORM_THREADS = 200;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void closingAConnectionReleasesItsPermitOnce() throws Exception {
+        Connection target = mock(Connection.class);
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(target);
+        JdbcPermitDataSource permits = new JdbcPermitDataSource(dataSource, 2, TIMEOUT_MILLIS);
+
+        Connection first = permits.getConnection();
+        permits.getConnection();
+        first.close();
+        first.close();
+
+        // Only the permit of the first connection was given back
+        permits.getConnection();
+        assertThrows(SQLTransientConnectionException.class, permits::getConnection);
+        verify(target, times(2)).close();
+    }
+
+    @Test
+    void failingToConnectReleasesThePermit() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection())
+                .thenThrow(new SQLException("Database unavailable"))
+                .thenReturn(mock(Connection.class));
+        JdbcPermitDataSource permits = new JdbcPermitDataSource(dataSource, 1, TIMEOUT_MILLIS);
+
+        assertThrows(SQLException.class, permits::getConnection);
+        permits.getConnection();
+    }
+
+    @Test
+    void waitingTooLongForAPermitFails() throws Exception {
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+        JdbcPermitDataSource permits = new JdbcPermitDataSource(dataSource, 1, TIMEOUT_MILLIS);
+
+        permits.getConnection();
+        long start = System.nanoTime();
+        assertThrows(SQLTransientConnectionException.class, permits::getConnection);
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= TIMEOUT_MILLIS);
+    }
+
+    @Test
+    void postProcessorWrapsTheSqliteDataSourceOnce() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        BeanPostProcessor postProcessor = VirtualThreadConfig.jdbcPermitDataSourcePostProcessor(
+                new MockEnvironment().withProperty("app.datasource.jdbc-permits", "3"),
+                new StaticListableBeanFactory(Map.of("meterRegistry", registry)).getBeanProvider(MeterRegistry.class));
+
+        try (SqliteDataSource sqlite = new SqliteDataSource(pool("writer"), pool("reader"))) {
+            Object wrapped = postProcessor.postProcessAfterInitialization(sqlite, "dataSource");
+            JdbcPermitDataSource permits = assertInstanceOf(JdbcPermitDataSource.class, wrapped);
+            assertSame(sqlite, permits.getTargetDataSource());
+
+            // Processing the wrapper again, as a refresh would, keeps it as is
+            assertSame(wrapped, postProcessor.postProcessAfterInitialization(wrapped, "dataSource"));
+            assertEquals(1, registry.find("jdbc.permits.waiting").gauges().size());
+
+            Object other = new Object();
+            assertSame(other, postProcessor.postProcessAfterInitialization(other, "other"));
+        }
+    }
+
+    @Test
+    void permitsBoundPlatformThreads() throws Exception {
+        ExecutorService platform = Executors.newFixedThreadPool(PLATFORM_THREADS);
+        try {
+            long elapsed = runLoad(new TaskExecutorAdapter(platform));
+            log.info("{} queries with {} JDBC permits on {} platform threads: {} ms", LOAD_QUERIES, LOAD_PERMITS,
+                    PLATFORM_THREADS, elapsed);
+        } finally {
+            platform.shutdown();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void permitsBoundVirtualThreads() throws Exception {
+        long elapsed = runLoad(new VirtualThreadTaskExecutor("jdbc-load-"));
+        log.info("{} queries with {} JDBC permits on virtual threads: {} ms", LOAD_QUERIES, LOAD_PERMITS, elapsed);
+    }
+
+    /**
+     * Runs queries concurrently, checking that no more connections than
+     * permits are ever open at once.
+     *
+     * @return the time taken, in milliseconds
+     */
+    private long runLoad(AsyncTaskExecutor executor) throws Exception {
+        SQLiteDataSource sqlite = new SQLiteDataSource();
+        sqlite.setUrl("jdbc:sqlite:" + directory.resolve("load.db"));
+        JdbcPermitDataSource dataSource = new JdbcPermitDataSource(sqlite, LOAD_PERMITS, 30000);
+
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maximumOpen = new AtomicInteger();
+        List<Future<Integer>> results = new ArrayList<>(LOAD_QUERIES);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < LOAD_QUERIES; i++) {
+            int value = i;
+            results.add(executor.submit(() -> {
+                try (Connection connection = dataSource.getConnection()) {
+                    maximumOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                    try (Statement statement = connection.createStatement();
+                            ResultSet result = statement.executeQuery("SELECT " + value)) {
+                        result.next();
+                        return result.getInt(1);
+                    } finally {
+                        open.decrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (int i = 0; i < LOAD_QUERIES; i++) {
+            assertEquals(i, results.get(i).get());
+        }
+        long elapsed = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(maximumOpen.get() <= LOAD_PERMITS);
+        assertEquals(0, dataSource.getWaitingThreads());
+        return elapsed;
+    }
+
+    private HikariDataSource pool(String name) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl("jdbc:sqlite:" + directory.resolve(name + ".db"));
+        pool.setPoolName(name);
+        return pool;
+    }
+}
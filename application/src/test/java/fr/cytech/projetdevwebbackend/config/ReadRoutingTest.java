@@ -0,0 +1,110 @@
+package fr.cytech.projetdevwebbackend.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import fr.cytech.projetdevwebbackend.users.model.User;
+import fr.cytech.projetdevwebbackend.users.model.repository.UserRepository;
+import fr.cytech.projetdevwebbackend.users.service.UserAdministrationService;
+import fr.cytech.projetdevwebbackend.util.services.WriteQueue;
+
+/**
+ * Checks that repository reads run outside of any transaction go to the
+ * reader pool, so that they never wait for the single writer connection.
+ * <p>
+ * Runs the whole application against a new database in a temporary
+ * directory, with the admin account created on startup.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@SpringBootTest
+class ReadRoutingTest {
+
+    private static final String ADMIN_USERNAME = "admin";
+
+    /** Far below the pool's connection timeout */
+    private static final Duration READ_TIMEOUT = Duration.ofSeconds(5);
+
+    private static Path directory;
+
+    @Autowired
+    private WriteQueue writeQueue;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserAdministrationService userAdministrationService;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("read-routing");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + directory.resolve("DATABASE.db"));
+        registry.add("app.database.path.root", () -> directory.resolve("database").toString());
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void userLookupsDontWaitForTheWriter() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // Holds the writer connection until released
+        CompletableFuture<Integer> write = writeQueue.submit(() -> {
+            Integer one = jdbcTemplate.queryForObject("SELECT 1", Integer.class);
+            holding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return one;
+        });
+
+        try {
+            assertTrue(holding.await(10, TimeUnit.SECONDS));
+            assertTimeoutPreemptively(READ_TIMEOUT, () -> {
+                User admin = userRepository.findByUsername(ADMIN_USERNAME).orElseThrow();
+                assertTrue(userRepository.findWithRolesByUsernameOrEmail(ADMIN_USERNAME, ADMIN_USERNAME).isPresent());
+                assertEquals(admin.getId(), userRepository.findIdByUsernameOrEmail(ADMIN_USERNAME).orElseThrow());
+                assertTrue(userRepository.findProfilePictureByUsernameOrEmail(ADMIN_USERNAME).isPresent());
+                assertEquals(admin.getScore(), userRepository.getUserScoreById(admin.getId()));
+                userAdministrationService.getUserScore(ADMIN_USERNAME);
+            });
+        } finally {
+            release.countDown();
+        }
+        assertEquals(1, write.get(10, TimeUnit.SECONDS));
+    }
+}
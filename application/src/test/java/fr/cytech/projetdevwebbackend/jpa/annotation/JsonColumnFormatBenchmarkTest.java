@@ -0,0 +1,143 @@
+package fr.cytech.projetdevwebbackend.jpa.annotation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Compares the JSON and Smile storage formats on device properties shaped
+ * like the ones the platform stores: a few flat settings, sensor readings and
+ * a schedule repeating the same keys.
+ * <p>
+ * Row sizes are asserted, since Smile being smaller is why devices use it.
+ * Encoding and decoding times are only logged, as they depend on the machine
+ * running the tests.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@Slf4j
+class JsonColumnFormatBenchmarkTest {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> PROPERTIES_TYPE = new TypeReference<>() {
+    };
+
+    private static final int PAYLOADS = 200;
+    private static final int WARMUP_ROUNDS = 20;
+    private static final int MEASURED_ROUNDS = 50;
+
+    @Test
+    void smileRowsAreSmallerThanJson() throws IOException {
+        List<Map<String, Object>> payloads = payloads();
+        long jsonBytes = totalSize(JsonColumn.Format.JSON, payloads);
+        long smileBytes = totalSize(JsonColumn.Format.SMILE, payloads);
+
+        log.info("Device properties, {} rows: JSON {} bytes, Smile {} bytes ({}%)", PAYLOADS, jsonBytes,
+                smileBytes, smileBytes * 100 / jsonBytes);
+        assertTrue(smileBytes < jsonBytes);
+    }
+
+    @Test
+    void bothFormatsRoundTripAndAreTimed() throws IOException {
+        List<Map<String, Object>> payloads = payloads();
+        for (JsonColumn.Format format : List.of(JsonColumn.Format.JSON, JsonColumn.Format.SMILE)) {
+            ObjectMapper mapper = format.mapper();
+            List<byte[]> rows = encode(mapper, payloads);
+            for (int i = 0; i < payloads.size(); i++) {
+                assertEquals(payloads.get(i), mapper.readValue(rows.get(i), PROPERTIES_TYPE));
+            }
+
+            for (int round = 0; round < WARMUP_ROUNDS; round++) {
+                decode(mapper, encode(mapper, payloads));
+            }
+
+            long encoding = 0;
+            long decoding = 0;
+            for (int round = 0; round < MEASURED_ROUNDS; round++) {
+                long start = System.nanoTime();
+                rows = encode(mapper, payloads);
+                long encoded = System.nanoTime();
+                decode(mapper, rows);
+                encoding += encoded - start;
+                decoding += System.nanoTime() - encoded;
+            }
+
+            long rowsMeasured = (long) MEASURED_ROUNDS * payloads.size();
+            log.info("{}: {} ns to serialize and {} ns to parse a row", format, encoding / rowsMeasured,
+                    decoding / rowsMeasured);
+        }
+    }
+
+    private long totalSize(JsonColumn.Format format, List<Map<String, Object>> payloads) throws IOException {
+        long size = 0;
+        for (byte[] row : encode(format.mapper(), payloads)) {
+            size += row.length;
+        }
+        return size;
+    }
+
+    private List<byte[]> encode(ObjectMapper mapper, List<Map<String, Object>> payloads) throws IOException {
+        List<byte[]> rows = new ArrayList<>(payloads.size());
+        for (Map<String, Object> payload : payloads) {
+            rows.add(mapper.writeValueAsBytes(payload));
+        }
+        return rows;
+    }
+
+    private void decode(ObjectMapper mapper, List<byte[]> rows) throws IOException {
+        for (byte[] row : rows) {
+            mapper.readValue(row, PROPERTIES_TYPE);
+        }
+    }
+
+    /**
+     * Generates the same device properties on every run.
+     */
+    private static List<Map<String, Object>> payloads() {
+        Random random = new Random(42);
+        String[] kinds = { "lamp", "thermostat", "shutter", "camera", "plug" };
+        String[] rooms = { "kitchen", "living room", "bedroom", "office", "garage" };
+
+        List<Map<String, Object>> payloads = new ArrayList<>(PAYLOADS);
+        for (int i = 0; i < PAYLOADS; i++) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            properties.put("kind", kinds[random.nextInt(kinds.length)]);
+            properties.put("room", rooms[random.nextInt(rooms.length)]);
+            properties.put("firmware", "2." + random.nextInt(10) + "." + random.nextInt(100));
+            properties.put("online", random.nextBoolean());
+            properties.put("power", random.nextInt(3000));
+
+            Map<String, Object> sensors = new LinkedHashMap<>();
+            sensors.put("temperature", random.nextInt(400) / 10.0);
+            sensors.put("humidity", random.nextInt(100));
+            sensors.put("battery", random.nextInt(101));
+            properties.put("sensors", sensors);
+
+            List<Map<String, Object>> schedule = new ArrayList<>();
+            for (int slot = 0; slot < 4 + random.nextInt(8); slot++) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("day", slot % 7);
+                entry.put("start", String.format("%02d:%02d", random.nextInt(24), random.nextInt(4) * 15));
+                entry.put("duration", 15 * (1 + random.nextInt(16)));
+                entry.put("enabled", random.nextBoolean());
+                schedule.add(entry);
+            }
+            properties.put("schedule", schedule);
+            payloads.add(properties);
+        }
+        return payloads;
+    }
+}
@@ -0,0 +1,101 @@
+package fr.cytech.projetdevwebbackend.jpa.repository;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import fr.cytech.projetdevwebbackend.devices.model.Device;
+import fr.cytech.projetdevwebbackend.devices.model.repository.DeviceRepository;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Checks that the JSON count, exists and first lookups run a single statement
+ * and hydrate at most one entity, however many devices there are.
+ * <p>
+ * Runs the whole application against a new database in a temporary
+ * directory.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.session.events.log=false" })
+class JsonLookupTest {
+
+    private static Path directory;
+
+    @Autowired
+    private DeviceRepository deviceRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) throws IOException {
+        directory = Files.createTempDirectory("json-lookup");
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + directory.resolve("DATABASE.db"));
+        registry.add("app.database.path.root", () -> directory.resolve("database").toString());
+    }
+
+    @AfterAll
+    static void deleteDatabase() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    @Test
+    void lookupsDontGrowWithTheTable() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        addDevices(0, 100);
+        statistics.clear();
+        lookUp(100);
+        long smallLoads = statistics.getEntityLoadCount();
+        long smallStatements = statistics.getPrepareStatementCount();
+
+        addDevices(100, 2000);
+        statistics.clear();
+        lookUp(2000);
+
+        assertTrue(smallLoads <= 1);
+        assertEquals(smallLoads, statistics.getEntityLoadCount());
+        assertEquals(3, smallStatements);
+        assertEquals(smallStatements, statistics.getPrepareStatementCount());
+    }
+
+    private void lookUp(long devices) {
+        assertEquals(devices, deviceRepository.countByKey("kind"));
+        assertTrue(deviceRepository.existsByKeyAndValue("room", "room-42"));
+        assertFalse(deviceRepository.jsonSearchFirstByKeyAndValue("kind", "lamp").isEmpty());
+    }
+
+    private void addDevices(int from, int to) {
+        List<Device> devices = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            devices.add(new Device("lookup-" + i, Map.of("kind", "lamp", "room", "room-" + i)));
+        }
+        deviceRepository.saveAll(devices);
+    }
+}
@@ -0,0 +1,54 @@
+package fr.cytech.projetdevwebbackend.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the eviction order of {@link ExpiringCache}.
+ *
+ * @author fleefie
+ * @since 2026-10-17
+ */
+class ExpiringCacheTest {
+
+    private static final long IN_A_DAY = System.currentTimeMillis() + 86_400_000L;
+
+    @Test
+    void evictsTheLeastRecentlyUsedEntries() {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(10);
+
+        // The oldest entries expire last, so an expiry order would keep them
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, "value " + i, IN_A_DAY - i);
+        }
+        for (int i = 5; i < 10; i++) {
+            cache.get(i);
+        }
+        cache.put(10, "value 10", IN_A_DAY);
+
+        // A tenth of the cache is freed, taking the two unused entries
+        assertEquals(9, cache.size());
+        assertTrue(cache.get(0).isEmpty());
+        assertTrue(cache.get(1).isEmpty());
+        for (int i = 2; i <= 10; i++) {
+            assertEquals("value " + i, cache.get(i).orElseThrow());
+        }
+    }
+
+    @Test
+    void dropsExpiredEntriesBeforeUsedOnes() throws InterruptedException {
+        ExpiringCache<Integer, String> cache = new ExpiringCache<>(2);
+        cache.put(0, "recent", IN_A_DAY);
+        cache.put(1, "expiring", System.currentTimeMillis() + 50);
+        cache.get(1);
+
+        Thread.sleep(100);
+        cache.put(2, "new", IN_A_DAY);
+
+        assertTrue(cache.get(1).isEmpty());
+        assertEquals("recent", cache.get(0).orElseThrow());
+        assertEquals("new", cache.get(2).orElseThrow());
+    }
+}